@@ -1,13 +1,33 @@
 package study.querydsl;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.warmup.QueryShapeRecorder;
+import study.querydsl.warmup.QueryShapeRecordingEntityManager;
+
+import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@EnableScheduling
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(QuerydslApplication.class, args);
+		SpringApplication application = new SpringApplication(QuerydslApplication.class);
+		// 기동 단계별 소요 시간을 모아뒀다가 `StartupReporter`가 기동 완료 후 출력하고 비운다.
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
+	}
+
+	// `EntityManager`는 트랜잭션 단위로 바인딩되는 프록시가 주입되므로
+	// `JPAQueryFactory`를 싱글톤 빈으로 등록해도 동시성 문제가 없다.
+	// 실행되는 쿼리 모양을 기동 시 웜업에 쓰기 위해 기록용 프록시로 한 번 감싼다.
+	@Bean
+	JPAQueryFactory jpaQueryFactory(EntityManager em, QueryShapeRecorder queryShapeRecorder) {
+		return new JPAQueryFactory(QueryShapeRecordingEntityManager.wrap(em, queryShapeRecorder));
 	}
 
 }
@@ -0,0 +1,102 @@
+package study.querydsl.analytics;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.AgeStats;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.EntityChangeEvent;
+import study.querydsl.writebehind.MemberAgesFlushedEvent;
+
+import java.util.Map;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 대시보드용 나이 집계를 DB 대신 메모리 스냅샷(`MemberColumnStore`)에서 계산한다.
+ * 기동 시 1번 전체 적재하고, 이후에는 커밋된 변경 이벤트로 증분 갱신한다.
+ * `analytics.snapshot.enabled=true`일 때만 등록된다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "analytics.snapshot.enabled", havingValue = "true")
+public class MemberAnalyticsSnapshot {
+    private final JPAQueryFactory queryFactory;
+    private final MemberColumnStore store = new MemberColumnStore(1024);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            store.putTeam(row.get(team.id), row.get(team.name));
+        }
+        for (Tuple row : queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .fetch()) {
+            store.upsertMember(row.get(member.id), row.get(member.username), row.get(member.age), row.get(member.team.id));
+        }
+        store.compact();
+    }
+
+    // 회원명 변경으로 쓰이지 않게 된 사전 항목과 삭제된 row 를 주기적으로 정리한다.
+    @Scheduled(fixedDelayString = "${analytics.snapshot.compact-interval-ms:600000}",
+            initialDelayString = "${analytics.snapshot.compact-interval-ms:600000}")
+    public void compact() {
+        store.compact();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityType() == Member.class) {
+            Member changed = (Member) event.getEntity();
+            if (event.getChangeType() == ChangeType.DELETE) {
+                store.removeMember(changed.getId());
+            } else {
+                store.upsertMember(changed.getId(), changed.getUsername(), changed.getAge(), teamIdOf(changed));
+            }
+        } else if (event.getEntityType() == Team.class && event.getChangeType() != ChangeType.DELETE) {
+            Team changed = (Team) event.getEntity();
+            store.putTeam(changed.getId(), changed.getName());
+        }
+    }
+
+    @EventListener
+    public void onMemberAgesFlushed(MemberAgesFlushedEvent event) {
+        event.getAges().forEach(store::updateAge);
+    }
+
+    public Map<String, AgeStats> ageStatsByTeam(int ageGoe, int ageLoe) {
+        return store.ageStatsByTeam(ageGoe, ageLoe);
+    }
+
+    public Map<String, AgeStats> ageStatsByTeam() {
+        return store.ageStatsByTeam();
+    }
+
+    public AgeStats ageStats() {
+        return store.ageStats();
+    }
+
+    // 커밋 이후라 프록시를 초기화하면 안 되므로 식별자만 꺼낸다.
+    private static Long teamIdOf(Member changed) {
+        Team memberTeam = changed.getTeam();
+        if (memberTeam == null) {
+            return null;
+        }
+        if (memberTeam instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) memberTeam).getHibernateLazyInitializer().getIdentifier();
+        }
+        return memberTeam.getId();
+    }
+}
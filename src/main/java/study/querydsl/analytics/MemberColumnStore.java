@@ -0,0 +1,330 @@
+package study.querydsl.analytics;
+
+import study.querydsl.dto.AgeStats;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * `Member`의 컬럼 단위 스냅샷.
+ * 회원 id(long), 나이, 팀 코드, 회원명 코드를 각각 off-heap(direct) 버퍼에 컬럼으로 저장한다.
+ * 회원명과 팀은 사전(dictionary)으로 int 코드로 바꿔서 저장하므로 힙에는 사전만 남는다.
+ *
+ * row 는 회원 id 오름차순으로 유지하고, id 로 row 를 찾을 때는 id 컬럼을 이진 탐색한다. (회원마다 힙 객체를 두지 않는다)
+ * 새 회원은 보통 가장 큰 id 라서 끝에 붙고, 중간 id 가 들어오면 뒤쪽 row 를 한 칸씩 민다.
+ * 삭제된 row 는 팀 코드를 `DELETED`로 표시해 두고, `compact()`에서 지우면서 쓰이지 않는 회원명도 사전에서 뺀다.
+ * 삭제된 row 가 살아 있는 row 보다 많아지면 `compact()`를 자동으로 한다.
+ */
+public class MemberColumnStore {
+    static final int NO_TEAM = -1;
+    static final int DELETED = -2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private LongBuffer memberIds;
+    private IntBuffer ages;
+    private IntBuffer teamCodes;
+    private IntBuffer usernameCodes;
+    private int capacity;
+    private int rowCount;
+    private int deletedCount;
+
+    private final Map<Long, Integer> teamCodeById = new HashMap<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private Map<String, Integer> usernameCodeByName = new HashMap<>();
+    private List<String> usernames = new ArrayList<>();
+
+    public MemberColumnStore(int initialCapacity) {
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    public void upsertMember(Long memberId, String username, int age, Long teamId) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(memberId);
+            if (row < 0) {
+                row = insertRow(-(row + 1), memberId);
+            } else if (teamCodes.get(row) == DELETED) {
+                deletedCount--;
+            }
+            ages.put(row, age);
+            teamCodes.put(row, teamId == null ? NO_TEAM : teamCode(teamId));
+            usernameCodes.put(row, usernameCode(username));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateAge(Long memberId, int age) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(memberId);
+            if (row >= 0 && teamCodes.get(row) != DELETED) {
+                ages.put(row, age);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeMember(Long memberId) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(memberId);
+            if (row >= 0 && teamCodes.get(row) != DELETED) {
+                teamCodes.put(row, DELETED);
+                deletedCount++;
+                if (deletedCount > rowCount - deletedCount) {
+                    compactRows();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putTeam(Long teamId, String name) {
+        lock.writeLock().lock();
+        try {
+            teamNames.set(teamCode(teamId), name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 삭제된 row 를 지워서 앞으로 당기고, 남은 row 가 쓰는 회원명만으로 사전을 다시 만든다.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactRows();
+            Map<String, Integer> newCodeByName = new HashMap<>();
+            List<String> newUsernames = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                String username = usernames.get(usernameCodes.get(row));
+                usernameCodes.put(row, newCodeByName.computeIfAbsent(username, name -> {
+                    newUsernames.add(name);
+                    return newUsernames.size() - 1;
+                }));
+            }
+            usernameCodeByName = newCodeByName;
+            usernames = newUsernames;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 사전 크기 (테스트용)
+    int usernameDictionarySize() {
+        lock.readLock().lock();
+        try {
+            return usernames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * `select team.name, count(member), sum(member.age), min(member.age), max(member.age)
+     *  from Member member join member.team team where member.age between :ageGoe and :ageLoe group by team.name`
+     * 와 같은 결과를 스냅샷에서 계산한다.
+     * row 마다 조건 검사 하나(팀 없음/삭제, 나이 범위)를 거쳐 팀 코드별 누적 배열에 더하는 단순 루프다.
+     */
+    public Map<String, AgeStats> ageStatsByTeam(int ageGoe, int ageLoe) {
+        lock.readLock().lock();
+        try {
+            int teamCount = teamNames.size();
+            long[] counts = new long[teamCount];
+            long[] sums = new long[teamCount];
+            int[] mins = new int[teamCount];
+            int[] maxs = new int[teamCount];
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxs, Integer.MIN_VALUE);
+
+            for (int row = 0; row < rowCount; row++) {
+                int teamCode = teamCodes.get(row);
+                int age = ages.get(row);
+                if (teamCode < 0 || age < ageGoe || age > ageLoe) {
+                    continue;
+                }
+                counts[teamCode]++;
+                sums[teamCode] += age;
+                mins[teamCode] = Math.min(mins[teamCode], age);
+                maxs[teamCode] = Math.max(maxs[teamCode], age);
+            }
+
+            // 같은 이름의 팀이 여럿이면 `group by team.name`처럼 합친다.
+            Map<String, AgeStats> result = new LinkedHashMap<>();
+            for (int teamCode = 0; teamCode < teamCount; teamCode++) {
+                if (counts[teamCode] == 0) {
+                    continue;
+                }
+                AgeStats stats = new AgeStats(counts[teamCode], sums[teamCode], mins[teamCode], maxs[teamCode]);
+                result.merge(String.valueOf(teamNames.get(teamCode)), stats, AgeStats::merge);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, AgeStats> ageStatsByTeam() {
+        return ageStatsByTeam(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 팀 유무와 상관없이 전체 회원의 나이 통계. (`from Member member` 집계)
+     */
+    public AgeStats ageStats() {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int row = 0; row < rowCount; row++) {
+                if (teamCodes.get(row) == DELETED) {
+                    continue;
+                }
+                int age = ages.get(row);
+                count++;
+                sum += age;
+                min = Math.min(min, age);
+                max = Math.max(max, age);
+            }
+            return new AgeStats(count, sum, min, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            Integer code = usernameCodeByName.get(username);
+            if (code == null) {
+                return 0;
+            }
+            long count = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (usernameCodes.get(row) == code && teamCodes.get(row) != DELETED) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 회원의 row. 없으면 `-(끼워 넣을 위치) - 1` (`Arrays.binarySearch`와 같은 규칙)
+     */
+    private int rowOf(long memberId) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = memberIds.get(mid);
+            if (midId < memberId) {
+                low = mid + 1;
+            } else if (midId > memberId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int insertRow(int row, long memberId) {
+        if (rowCount == capacity) {
+            allocate(capacity * 2);
+        }
+        for (int from = rowCount - 1; from >= row; from--) {
+            copyRow(from, from + 1);
+        }
+        memberIds.put(row, memberId);
+        rowCount++;
+        return row;
+    }
+
+    private void compactRows() {
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (teamCodes.get(row) != DELETED) {
+                copyRow(row, live++);
+            }
+        }
+        rowCount = live;
+        deletedCount = 0;
+    }
+
+    private void copyRow(int from, int to) {
+        memberIds.put(to, memberIds.get(from));
+        ages.put(to, ages.get(from));
+        teamCodes.put(to, teamCodes.get(from));
+        usernameCodes.put(to, usernameCodes.get(from));
+    }
+
+    private int teamCode(Long teamId) {
+        return teamCodeById.computeIfAbsent(teamId, id -> {
+            teamNames.add(null);
+            return teamNames.size() - 1;
+        });
+    }
+
+    private int usernameCode(String username) {
+        return usernameCodeByName.computeIfAbsent(username, name -> {
+            usernames.add(name);
+            return usernames.size() - 1;
+        });
+    }
+
+    // 용량이 부족하면 2배 크기의 버퍼를 새로 잡고 복사한다. 이전 버퍼는 GC 가 정리할 때 해제된다.
+    private void allocate(int newCapacity) {
+        LongBuffer newMemberIds = ByteBuffer.allocateDirect(newCapacity * Long.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+        IntBuffer newAges = newIntColumn(newCapacity);
+        IntBuffer newTeamCodes = newIntColumn(newCapacity);
+        IntBuffer newUsernameCodes = newIntColumn(newCapacity);
+        for (int row = 0; row < rowCount; row++) {
+            newMemberIds.put(row, memberIds.get(row));
+            newAges.put(row, ages.get(row));
+            newTeamCodes.put(row, teamCodes.get(row));
+            newUsernameCodes.put(row, usernameCodes.get(row));
+        }
+        memberIds = newMemberIds;
+        ages = newAges;
+        teamCodes = newTeamCodes;
+        usernameCodes = newUsernameCodes;
+        capacity = newCapacity;
+    }
+
+    private static IntBuffer newIntColumn(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+    }
+}
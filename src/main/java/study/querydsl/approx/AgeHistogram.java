@@ -0,0 +1,61 @@
+package study.querydsl.approx;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 나이별 회원 수. 나이는 서로 다른 값이 몇 개 되지 않으므로 값마다 개수를 그대로 센다.
+ * t-digest 와 달리 값을 뺄 수 있어서 수정, 삭제도 바로 반영하고, 백분위수도 근사가 아닌 정확한 값이다.
+ */
+class AgeHistogram {
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long size;
+
+    void add(int age) {
+        counts.merge(age, 1L, Long::sum);
+        size++;
+    }
+
+    void remove(int age) {
+        Long count = counts.get(age);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            counts.remove(age);
+        } else {
+            counts.put(age, count - 1);
+        }
+        size--;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * nearest-rank 백분위수: 작은 쪽부터 `ceil(quantile * size)`번째 값
+     */
+    double quantile(double quantile) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * size));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return entry.getKey();
+            }
+        }
+        return counts.lastKey();
+    }
+
+    AgeHistogram merge(AgeHistogram other) {
+        AgeHistogram merged = new AgeHistogram();
+        counts.forEach((age, count) -> merged.counts.merge(age, count, Long::sum));
+        other.counts.forEach((age, count) -> merged.counts.merge(age, count, Long::sum));
+        merged.size = size + other.size;
+        return merged;
+    }
+}
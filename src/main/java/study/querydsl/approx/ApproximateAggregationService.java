@@ -0,0 +1,257 @@
+package study.querydsl.approx;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.EntityChangeEvent;
+import study.querydsl.writebehind.MemberAgesFlushedEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * `group by team.name`으로 정확히 세는 대신, 팀별 스케치로 근사값을 바로 답한다.
+ * - `countDistinct(member.username)`: HyperLogLog
+ * - `member.age`의 백분위수: 나이별 회원 수(`AgeHistogram`)
+ *
+ * 스케치는 처음 조회할 때 회원 테이블을 한 번 스트리밍(스크롤)으로 읽어서 팀 id 별로 만들고,
+ * 이후 변경은 커밋 이벤트로 바로 반영한다. (팀 이름은 조회할 때 합치므로 팀 이름 변경도 스케치를 건드리지 않는다)
+ * - 회원 추가/삭제/수정: 수정 전 값(`EntityChangeEvent.previousState`)을 빼고 새 값을 더한다.
+ * - 쓰기 지연 버퍼의 나이 반영(`MemberAgesFlushedEvent`): 반영 직전 나이를 빼고 새 나이를 더한다.
+ * HyperLogLog 는 회원명을 뺄 수 없으므로, 빠진 회원명이 팀 회원 수의 `rebuild-drift-ratio`를 넘으면 주기적으로 다시 만든다.
+ * 수정 전 값을 모르는 변경이나 다시 만드는 중에 커밋된 변경은 반영하지 못하므로 전체를 stale 로 표시하고 다시 만든다.
+ * 반영하지 못한 변경이 있는 동안의 조회 결과에는 `stale`이 표시된다.
+ */
+@Service
+public class ApproximateAggregationService {
+    private static final int FETCH_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+    private final double rebuildDriftRatio;
+
+    private final Map<Long, String> teamNames = new ConcurrentHashMap<>();
+    // key: team id
+    private volatile Map<Long, TeamSketch> sketches;
+    private volatile boolean stale;
+    private volatile boolean rebuilding;
+
+    public ApproximateAggregationService(JPAQueryFactory queryFactory,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${approx.hll-precision:14}") int precision,
+                                         @Value("${approx.rebuild-drift-ratio:0.05}") double rebuildDriftRatio) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.precision = precision;
+        this.rebuildDriftRatio = rebuildDriftRatio;
+    }
+
+    /**
+     * 빠진 회원명이 있으면 추정값이 실제보다 클 수 있으므로 `stale`이다.
+     */
+    public ApproximateResult<Long> countDistinctUsernames(String teamName) {
+        TeamSketch sketch = sketchOf(teamName);
+        return new ApproximateResult<>(sketch.countDistinctUsernames(), stale || sketch.removedUsernames() > 0);
+    }
+
+    public ApproximateResult<Double> agePercentile(String teamName, double quantile) {
+        TeamSketch sketch = sketchOf(teamName);
+        return new ApproximateResult<>(sketch.agePercentile(quantile), stale);
+    }
+
+    /**
+     * 팀 전체(팀에 속한 회원 전체)에 대한 스케치. 팀별 스케치를 합친다.
+     */
+    public TeamSketch total() {
+        return sketches().values().stream()
+                .reduce(new TeamSketch(precision), TeamSketch::merge);
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public synchronized void rebuild() {
+        Map<Long, TeamSketch> rebuilt = new HashMap<>();
+        rebuilding = true;
+        stale = false;
+        try {
+            scan(rebuilt);
+            sketches = new ConcurrentHashMap<>(rebuilt);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    private void scan(Map<Long, TeamSketch> rebuilt) {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.select(team.id, team.name).from(team).fetch()
+                    .forEach(row -> teamNames.put(row.get(team.id), row.get(team.name)));
+
+            JPAQuery<?> rows = queryFactory
+                    .select(member.team.id, member.username, member.age)
+                    .from(member)
+                    .where(member.team.isNotNull());
+            // 결과를 한 번에 메모리에 올리지 않도록 하이버네이트 스크롤로 한 줄씩 읽는다.
+            // 스칼라 값만 조회하므로 영속성 컨텍스트에도 쌓이지 않는다.
+            try (ScrollableResults scroll = rows.createQuery()
+                    .unwrap(org.hibernate.query.Query.class)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (scroll.next()) {
+                    Object[] row = scroll.get();
+                    rebuilt.computeIfAbsent((Long) row[0], teamId -> new TeamSketch(precision))
+                            .add((String) row[1], ((Number) row[2]).intValue());
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${approx.rebuild-interval-ms:600000}")
+    public void rebuildIfStale() {
+        Map<Long, TeamSketch> current = sketches;
+        if (current != null && (stale || drifted(current))) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        // 이벤트는 커밋 뒤에 오므로, 이 확인 뒤에 시작하는 스캔은 이 변경을 본다.
+        if (rebuilding) {
+            stale = true;
+            return;
+        }
+        Map<Long, TeamSketch> current = sketches;
+        if (current == null) {
+            return;
+        }
+        if (event.getEntityType() == Team.class) {
+            Team changed = (Team) event.getEntity();
+            if (event.getChangeType() == ChangeType.DELETE) {
+                teamNames.remove(changed.getId());
+                current.remove(changed.getId());
+            } else {
+                teamNames.put(changed.getId(), changed.getName());
+            }
+        } else if (event.getEntityType() == Member.class) {
+            onMemberChange(current, event);
+        }
+    }
+
+    @EventListener
+    public void onMemberAgesFlushed(MemberAgesFlushedEvent event) {
+        if (rebuilding) {
+            stale = true;
+            return;
+        }
+        Map<Long, TeamSketch> current = sketches;
+        if (current == null) {
+            return;
+        }
+        event.getAges().forEach((memberId, age) -> {
+            Long teamId = event.getTeamIds().get(memberId);
+            Integer previousAge = event.getPreviousAges().get(memberId);
+            if (teamId != null && previousAge != null) {
+                sketchOf(current, teamId).changeAge(previousAge, age);
+            }
+        });
+    }
+
+    private void onMemberChange(Map<Long, TeamSketch> current, EntityChangeEvent event) {
+        Member changed = (Member) event.getEntity();
+        Long teamId = teamIdOf(changed.getTeam());
+        if (event.getChangeType() == ChangeType.INSERT) {
+            if (teamId != null) {
+                sketchOf(current, teamId).add(changed.getUsername(), changed.getAge());
+            }
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETE) {
+            if (teamId != null) {
+                sketchOf(current, teamId).remove(changed.getUsername(), changed.getAge());
+            }
+            return;
+        }
+
+        Map<String, Object> previous = event.getPreviousState();
+        if (previous == null) {
+            stale = true;
+            return;
+        }
+        Long previousTeamId = teamIdOf(previous.get("team"));
+        String previousUsername = (String) previous.get("username");
+        int previousAge = (Integer) previous.get("age");
+        if (Objects.equals(previousTeamId, teamId) && Objects.equals(previousUsername, changed.getUsername())) {
+            if (teamId != null) {
+                sketchOf(current, teamId).changeAge(previousAge, changed.getAge());
+            }
+            return;
+        }
+        if (previousTeamId != null) {
+            sketchOf(current, previousTeamId).remove(previousUsername, previousAge);
+        }
+        if (teamId != null) {
+            sketchOf(current, teamId).add(changed.getUsername(), changed.getAge());
+        }
+    }
+
+    private boolean drifted(Map<Long, TeamSketch> current) {
+        return current.values().stream()
+                .anyMatch(sketch -> sketch.removedUsernames() > rebuildDriftRatio * sketch.memberCount());
+    }
+
+    private Map<Long, TeamSketch> sketches() {
+        if (sketches == null) {
+            synchronized (this) {
+                if (sketches == null) {
+                    rebuild();
+                }
+            }
+        }
+        return sketches;
+    }
+
+    // 같은 이름의 팀이 여럿이면 `group by team.name`처럼 합친다.
+    private TeamSketch sketchOf(String teamName) {
+        TeamSketch merged = new TeamSketch(precision);
+        for (Map.Entry<Long, TeamSketch> entry : sketches().entrySet()) {
+            if (teamName.equals(teamNames.get(entry.getKey()))) {
+                merged = merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    private TeamSketch sketchOf(Map<Long, TeamSketch> current, Long teamId) {
+        return current.computeIfAbsent(teamId, id -> new TeamSketch(precision));
+    }
+
+    // 커밋 이후라 프록시를 초기화하면 안 되므로 식별자만 꺼낸다.
+    private static Long teamIdOf(Object memberTeam) {
+        if (memberTeam == null) {
+            return null;
+        }
+        if (memberTeam instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) memberTeam).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) memberTeam).getId();
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.approx;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 스케치에서 읽은 값과 그 값이 마지막 재구성 이후의 변경을 다 반영하지 못했는지(`stale`) 여부.
+ * `stale`이면 값은 그대로 쓸 수 있지만, 다음 재구성 전까지 실제 값과 차이가 날 수 있다.
+ */
+@Getter
+@ToString
+public class ApproximateResult<T> {
+    private final T value;
+    private final boolean stale;
+
+    public ApproximateResult(T value, boolean stale) {
+        this.value = value;
+        this.stale = stale;
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.approx;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 서로 다른 값의 개수를 고정 크기 메모리(2^precision 바이트)로 추정한다.
+ * 표준 오차는 약 `1.04 / sqrt(2^precision)`이다. (precision 14 -> 16KB, 약 0.8%)
+ * 같은 precision 끼리는 레지스터별 최대값으로 합칠 수 있다.
+ * 값을 빼는 것은 지원하지 않는다.
+ */
+public class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision 은 4 ~ 18 이어야 합니다. precision=" + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    // `null`은 `count(distinct ...)`처럼 세지 않는다.
+    public void add(String value) {
+        if (value == null) {
+            return;
+        }
+        addHash(hash(value));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // 나머지 비트에서 처음 1이 나오는 위치. 나머지가 모두 0이면 최대값이 된다.
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // 값이 적을 때는 linear counting 이 더 정확하다.
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("precision 이 다른 HyperLogLog 는 합칠 수 없습니다.");
+        }
+        HyperLogLog merged = new HyperLogLog(precision);
+        for (int i = 0; i < registers.length; i++) {
+            merged.registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        return merged;
+    }
+
+    // FNV-1a 64bit + murmur3 fmix64: `String.hashCode()`는 32bit 라 큰 집합에서 충돌이 많다.
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
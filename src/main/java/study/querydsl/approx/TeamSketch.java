@@ -0,0 +1,67 @@
+package study.querydsl.approx;
+
+/**
+ * 팀 하나의 회원명 distinct 개수(HyperLogLog)와 나이 분포(`AgeHistogram`) 스케치.
+ * 둘 다 합칠 수 있으므로 팀별 스케치를 합치면 전체 스케치가 된다.
+ *
+ * 나이는 빼기도 바로 반영되지만, HyperLogLog 에서는 회원명을 뺄 수 없다.
+ * 그래서 빠진 회원명 수(`removedUsernames`)를 세어 두고, 그만큼 distinct 개수가 부풀었을 수 있다고 본다.
+ */
+public class TeamSketch {
+    private final HyperLogLog usernames;
+    private final AgeHistogram ages;
+    private long removedUsernames;
+
+    public TeamSketch(int precision) {
+        this(new HyperLogLog(precision), new AgeHistogram(), 0);
+    }
+
+    private TeamSketch(HyperLogLog usernames, AgeHistogram ages, long removedUsernames) {
+        this.usernames = usernames;
+        this.ages = ages;
+        this.removedUsernames = removedUsernames;
+    }
+
+    public synchronized void add(String username, int age) {
+        usernames.add(username);
+        ages.add(age);
+    }
+
+    public synchronized void remove(String username, int age) {
+        if (username != null) {
+            removedUsernames++;
+        }
+        ages.remove(age);
+    }
+
+    public synchronized void changeAge(int previousAge, int age) {
+        ages.remove(previousAge);
+        ages.add(age);
+    }
+
+    public synchronized long countDistinctUsernames() {
+        return usernames.estimate();
+    }
+
+    public synchronized long removedUsernames() {
+        return removedUsernames;
+    }
+
+    public synchronized long memberCount() {
+        return ages.size();
+    }
+
+    /**
+     * @param quantile 0.0 ~ 1.0 (예: 0.5 = 중앙값, 0.99 = p99)
+     */
+    public synchronized double agePercentile(double quantile) {
+        return ages.quantile(quantile);
+    }
+
+    public synchronized TeamSketch merge(TeamSketch other) {
+        synchronized (other) {
+            return new TeamSketch(usernames.merge(other.usernames), ages.merge(other.ages),
+                    removedUsernames + other.removedUsernames);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPQLQuery;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 캐시 키 = 직렬화된 JPQL + 바인딩 값(상수, 파라미터, limit/offset).
+ * JPQL 에는 상수가 `?1` 같은 자리표시자로만 들어가므로 바인딩 값을 함께 키에 넣어야 한다.
+ * 쿼리가 참조하는 엔티티 타입도 같이 모아서 무효화에 사용한다(키 비교에는 쓰지 않는다).
+ */
+@Getter
+@EqualsAndHashCode(of = {"jpql", "bindings"})
+public class QueryCacheKey {
+    private final String jpql;
+    private final List<Object> bindings;
+    private final Set<Class<?>> entityTypes;
+
+    private QueryCacheKey(String jpql, List<Object> bindings, Set<Class<?>> entityTypes) {
+        this.jpql = jpql;
+        this.bindings = bindings;
+        this.entityTypes = entityTypes;
+    }
+
+    public static QueryCacheKey of(JPQLQuery<?> query) {
+        Collector collector = new Collector();
+        collector.collect(query.getMetadata());
+        return new QueryCacheKey(
+                query.toString(),
+                Collections.unmodifiableList(collector.bindings),
+                Collections.unmodifiableSet(collector.entityTypes));
+    }
+
+    @Override
+    public String toString() {
+        return jpql + " " + bindings;
+    }
+
+    /**
+     * 메타데이터를 직렬화 순서와 같은 순서(select, from/join, where, group by, having, order by)로 순회한다.
+     */
+    private static class Collector implements Visitor<Void, QueryMetadata> {
+        private final List<Object> bindings = new ArrayList<>();
+        private final Set<Class<?>> entityTypes = new LinkedHashSet<>();
+
+        void collect(QueryMetadata metadata) {
+            visit(metadata.getProjection(), metadata);
+            for (JoinExpression join : metadata.getJoins()) {
+                visit(join.getTarget(), metadata);
+                visit(join.getCondition(), metadata);
+            }
+            visit(metadata.getWhere(), metadata);
+            for (Expression<?> groupBy : metadata.getGroupBy()) {
+                visit(groupBy, metadata);
+            }
+            visit(metadata.getHaving(), metadata);
+            for (OrderSpecifier<?> orderBy : metadata.getOrderBy()) {
+                visit(orderBy.getTarget(), metadata);
+            }
+            QueryModifiers modifiers = metadata.getModifiers();
+            bindings.add(modifiers.getLimit());
+            bindings.add(modifiers.getOffset());
+        }
+
+        private void visit(Expression<?> expr, QueryMetadata metadata) {
+            if (expr != null) {
+                expr.accept(this, metadata);
+            }
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, QueryMetadata metadata) {
+            bindings.add(expr.getConstant());
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, QueryMetadata metadata) {
+            for (Expression<?> arg : expr.getArgs()) {
+                visit(arg, metadata);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, QueryMetadata metadata) {
+            for (Expression<?> arg : expr.getArgs()) {
+                visit(arg, metadata);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, QueryMetadata metadata) {
+            bindings.add(metadata.getParams().get(expr));
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, QueryMetadata metadata) {
+            // `member.team.name` 같은 경로는 암묵적 조인이므로 경로상의 엔티티를 모두 모은다.
+            for (Path<?> path = expr; path != null; path = path.getMetadata().getParent()) {
+                if (path.getType().isAnnotationPresent(Entity.class)) {
+                    entityTypes.add(path.getType());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, QueryMetadata metadata) {
+            collect(expr.getMetadata());
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, QueryMetadata metadata) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    visit((Expression<?>) arg, metadata);
+                } else {
+                    bindings.add(arg);
+                }
+            }
+            return null;
+        }
+    }
+}
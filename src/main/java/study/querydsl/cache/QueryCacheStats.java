@@ -0,0 +1,17 @@
+package study.querydsl.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class QueryCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRatio;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long estimatedBytes;
+}
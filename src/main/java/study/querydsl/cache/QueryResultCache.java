@@ -0,0 +1,171 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.event.EntityChangeEvent;
+
+import javax.persistence.Entity;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Querydsl 조회 결과 캐시. 쿼리마다 선택적으로 사용한다.
+ *
+ * <pre>
+ * List&lt;MemberDto&gt; result = queryResultCache.cached(Duration.ofMinutes(1))
+ *         .fetch(queryFactory
+ *                 .select(new QMemberDto(member.username, member.age))
+ *                 .from(member)
+ *                 .where(member.age.goe(20)));
+ * </pre>
+ *
+ * 무효화는 엔티티 타입 단위다. 엔티티 타입별로 세대(generation) 번호를 두고,
+ * `Member`가 커밋되면 `Member`의 세대를 올려서 `Member`를 참조하는 캐시 결과를 모두 무효로 만든다.
+ * 쿼리 실행 "전"에 세대를 읽어두므로, 쿼리 실행 중에 커밋된 변경이 있으면 그 결과는 저장되자마자 무효가 된다.
+ * 벌크 연산은 하이버네이트 이벤트가 발생하지 않으므로 `invalidate()`를 직접 호출해야 한다.
+ *
+ * DTO/스칼라 프로젝션만 캐시한다. 엔티티를 캐시하면 같은 인스턴스가 여러 스레드와 영속성 컨텍스트에서
+ * 공유되어 변경이 새거나 `LazyInitializationException`이 나므로, 엔티티를 조회하는 쿼리는 거부한다.
+ */
+@Component
+public class QueryResultCache {
+    private final Cache<QueryCacheKey, CachedResult> cache;
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    // 세대가 지난 결과는 카페인 입장에서는 hit 이지만 실제로는 miss 이므로 직접 센다.
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public QueryResultCache(@Value("${query-cache.max-bytes:67108864}") long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((QueryCacheKey key, CachedResult value) -> value.weight)
+                .expireAfter(new Expiry<QueryCacheKey, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(QueryCacheKey key, CachedResult value, long currentTime) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(QueryCacheKey key, CachedResult value, long currentTime, long currentDuration) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(QueryCacheKey key, CachedResult value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public CachedFetch cached(Duration ttl) {
+        return new CachedFetch(ttl);
+    }
+
+    public void invalidate(Class<?> entityType) {
+        generations.computeIfAbsent(entityType, type -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        invalidate(event.getEntityType());
+    }
+
+    public QueryCacheStats stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        long requests = hits + misses;
+        long estimatedBytes = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new QueryCacheStats(
+                hits,
+                misses,
+                requests == 0 ? 1.0 : (double) hits / requests,
+                cache.stats().evictionCount(),
+                cache.estimatedSize(),
+                estimatedBytes);
+    }
+
+    private Map<Class<?>, Long> currentGenerations(Set<Class<?>> entityTypes) {
+        Map<Class<?>, Long> snapshot = new HashMap<>();
+        for (Class<?> entityType : entityTypes) {
+            snapshot.put(entityType, generations.computeIfAbsent(entityType, type -> new AtomicLong()).get());
+        }
+        return snapshot;
+    }
+
+    // `select(member)`, `select(member, team.name)`처럼 엔티티가 하나라도 들어 있으면 true
+    private static boolean selectsEntity(Expression<?> projection) {
+        if (projection.getType().isAnnotationPresent(Entity.class)) {
+            return true;
+        }
+        if (projection instanceof FactoryExpression) {
+            return ((FactoryExpression<?>) projection).getArgs().stream().anyMatch(QueryResultCache::selectsEntity);
+        }
+        return false;
+    }
+
+    public class CachedFetch {
+        private final long ttlNanos;
+
+        private CachedFetch(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> List<T> fetch(JPAQuery<T> query) {
+            Expression<?> projection = query.getMetadata().getProjection();
+            if (projection == null || selectsEntity(projection)) {
+                throw new IllegalArgumentException("엔티티를 조회하는 쿼리는 캐시할 수 없습니다. DTO 로 프로젝션하세요. projection=" + projection);
+            }
+            QueryCacheKey key = QueryCacheKey.of(query);
+            CachedResult cachedResult = cache.getIfPresent(key);
+            if (cachedResult != null && cachedResult.generations.equals(currentGenerations(key.getEntityTypes()))) {
+                hitCount.increment();
+                return (List<T>) cachedResult.rows;
+            }
+            missCount.increment();
+
+            Map<Class<?>, Long> generationsBeforeQuery = currentGenerations(key.getEntityTypes());
+            List<T> rows = Collections.unmodifiableList(query.fetch());
+            long weight = Math.min(Integer.MAX_VALUE, ResultSizeEstimator.estimate(rows));
+            cache.put(key, new CachedResult(rows, generationsBeforeQuery, ttlNanos, (int) weight));
+            return rows;
+        }
+    }
+
+    private static class CachedResult {
+        private final List<?> rows;
+        private final Map<Class<?>, Long> generations;
+        private final long ttlNanos;
+        private final int weight;
+
+        CachedResult(List<?> rows, Map<Class<?>, Long> generations, long ttlNanos, int weight) {
+            this.rows = rows;
+            this.generations = generations;
+            this.ttlNanos = ttlNanos;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * 캐시에 올라간 결과의 대략적인 힙 사용량(바이트)을 추정한다.
+ * 정확한 측정이 아니라 캐시 용량 제한과 모니터링용 추정치다.
+ * 같은 쿼리의 결과는 row 모양이 같으므로 첫 row 만 측정해서 row 수를 곱한다.
+ */
+class ResultSizeEstimator {
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 8;
+
+    static long estimate(List<?> rows) {
+        long listBytes = OBJECT_HEADER + (long) REFERENCE * rows.size();
+        if (rows.isEmpty()) {
+            return listBytes;
+        }
+        return listBytes + estimateRow(rows.get(0)) * rows.size();
+    }
+
+    private static long estimateRow(Object row) {
+        if (row == null) {
+            return 0;
+        }
+        if (row instanceof String) {
+            return OBJECT_HEADER + 24 + 2L * ((String) row).length();
+        }
+        if (row instanceof Number || row instanceof Boolean || row instanceof Character || row instanceof Enum) {
+            return OBJECT_HEADER;
+        }
+        if (row instanceof Tuple) {
+            long bytes = OBJECT_HEADER;
+            for (Object value : ((Tuple) row).toArray()) {
+                bytes += REFERENCE + estimateRow(value);
+            }
+            return bytes;
+        }
+        // DTO, 엔티티: 필드 1단계까지만 본다. (연관된 엔티티는 참조 크기만 센다)
+        long bytes = OBJECT_HEADER;
+        for (Class<?> type = row.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (field.getType().isPrimitive()) {
+                    bytes += REFERENCE;
+                } else if (field.getType() == String.class) {
+                    bytes += REFERENCE + estimateString(row, field);
+                } else {
+                    bytes += REFERENCE;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateString(Object row, Field field) {
+        try {
+            field.setAccessible(true);
+            return estimateRow(field.get(row));
+        } catch (RuntimeException | IllegalAccessException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.cdc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.EntityChangeEvent;
+import study.querydsl.writebehind.MemberAgesFlushedEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 커밋된 `Member`/`Team` 변경을 구독자에게 전달하는 프로세스 내 CDC 파이프라인.
+ *
+ * 발행: 시퀀스 번호를 붙여서 저널에 먼저 기록하고, 각 구독자의 링 버퍼에 넣는다.
+ * 발행 순서와 시퀀스 순서가 같도록 발행은 한 번에 하나씩 한다.
+ * 구독: `subscribe()`로 등록하면 전용 스레드에서 묶음 단위로 받는다.
+ * `fromSequence`를 과거로 주면 저널에서 그 지점부터 다시 받는다.
+ */
+@Component
+public class ChangeEventBus {
+    private final ChangeEventJournal journal;
+    private final int bufferCapacity;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private long sequence;
+
+    public ChangeEventBus(@Value("${cdc.journal-file:./cdc/changes.log}") String journalFile,
+                          @Value("${cdc.segment-bytes:16777216}") long segmentBytes,
+                          @Value("${cdc.buffer-capacity:4096}") int bufferCapacity) {
+        this.journal = new ChangeEventJournal(Paths.get(journalFile), segmentBytes);
+        this.bufferCapacity = bufferCapacity;
+        this.sequence = journal.lastSequence();
+    }
+
+    // `Member`, `Team` 외의 엔티티(`Hello` 등)는 내보내지 않는다.
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityType() != Member.class && event.getEntityType() != Team.class) {
+            return;
+        }
+        publish(event.getEntityType().getSimpleName(), (Long) event.getId(), event.getChangeType());
+    }
+
+    // write-behind 버퍼가 JDBC 로 직접 반영한 변경도 같은 스트림으로 내보낸다.
+    @EventListener
+    public void onMemberAgesFlushed(MemberAgesFlushedEvent event) {
+        event.getAges().keySet().forEach(memberId ->
+                publish(Member.class.getSimpleName(), memberId, ChangeType.UPDATE));
+    }
+
+    public synchronized ChangeRecord publish(String entityName, Long id, ChangeType changeType) {
+        ChangeRecord record = new ChangeRecord(++sequence, entityName, id, changeType, System.currentTimeMillis());
+        journal.append(record);
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.offer(record);
+        }
+        return record;
+    }
+
+    /**
+     * 지금 이후의 변경부터 받는다.
+     */
+    public ChangeSubscription subscribe(String name, int batchSize, Consumer<List<ChangeRecord>> handler) {
+        synchronized (this) {
+            return subscribe(name, batchSize, sequence + 1, handler);
+        }
+    }
+
+    public synchronized ChangeSubscription subscribe(String name, int batchSize, long fromSequence,
+                                                     Consumer<List<ChangeRecord>> handler) {
+        ChangeSubscription subscription = new ChangeSubscription(name, bufferCapacity, batchSize,
+                fromSequence, sequence, journal, handler);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    public void unsubscribe(ChangeSubscription subscription) {
+        subscriptions.remove(subscription);
+        subscription.close();
+    }
+
+    public void replay(long fromSequence, Consumer<ChangeRecord> consumer) {
+        journal.replay(fromSequence, consumer);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        subscriptions.forEach(ChangeSubscription::close);
+        journal.close();
+    }
+}
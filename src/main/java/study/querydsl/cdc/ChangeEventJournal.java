@@ -0,0 +1,336 @@
+package study.querydsl.cdc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 변경 이벤트를 발행 순서대로 덧붙이는 로컬 파일. 구독자가 놓친 구간을 다시 읽는 데 쓴다.
+ *
+ * - 파일은 `segment-bytes`마다 세그먼트(`changes.log.{첫 시퀀스}`)로 나눈다.
+ * - 세그먼트마다 `INDEX_INTERVAL`개에 한 번씩 (시퀀스, 바이트 위치)를 색인 파일(`.idx`)에 남긴다.
+ *   다시 읽을 때는 세그먼트 이름과 색인으로 시작 지점을 찾아가므로, 저널이 길어져도 읽는 양은 그 지점 이후뿐이다.
+ * - 기동할 때는 마지막 세그먼트만 읽는다. 기록 도중에 죽어서 잘린 마지막 줄은 잘라낸다.
+ * - 파일은 한 인스턴스만 쓸 수 있다. (`.lock` 파일 잠금)
+ *   두 인스턴스가 각자 시퀀스를 매기면 번호가 겹쳐서 구독자의 빈 구간 감지가 깨진다.
+ */
+public class ChangeEventJournal implements AutoCloseable {
+    private static final int INDEX_INTERVAL = 128;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES * 2;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final Path directory;
+    private final String baseName;
+    private final long segmentBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final long lastSequence;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+
+    // 세그먼트의 첫 시퀀스 (오름차순). 마지막이 지금 쓰는 세그먼트다.
+    private final List<Long> segments = new ArrayList<>();
+    private FileChannel active;
+    private FileChannel activeIndex;
+    private long activeSize;
+    private long activeRecords;
+
+    public ChangeEventJournal(Path file, long segmentBytes) {
+        this.directory = file.toAbsolutePath().getParent();
+        this.baseName = file.getFileName().toString();
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            this.lockChannel = FileChannel.open(directory.resolve(baseName + LOCK_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.lock = tryLock(lockChannel, file);
+            migrateSingleFile();
+            segments.addAll(listSegments());
+            this.lastSequence = segments.isEmpty() ? 0 : recoverLastSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized void append(ChangeRecord record) {
+        byte[] line = (record.toLine() + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            if (active == null || (activeSize >= segmentBytes && activeRecords > 0)) {
+                rotate(record.getSequence());
+            }
+            if (activeRecords % INDEX_INTERVAL == 0) {
+                writeIndexEntry(activeIndex, record.getSequence(), activeSize);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            activeSize += line.length;
+            activeRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * `fromSequence` 이후(포함)의 이벤트를 순서대로 넘긴다.
+     * 호출한 시점까지 기록된 이벤트만 넘기고, 그 뒤에 덧붙는 이벤트는 구독자가 링 버퍼로 받는다.
+     */
+    public void replay(long fromSequence, Consumer<ChangeRecord> consumer) {
+        List<Long> snapshot;
+        long activeEnd;
+        synchronized (this) {
+            snapshot = new ArrayList<>(segments);
+            activeEnd = activeSize;
+        }
+        try {
+            for (int i = firstSegmentFor(snapshot, fromSequence); i < snapshot.size(); i++) {
+                Path segment = segmentPath(snapshot.get(i));
+                long end = i == snapshot.size() - 1 ? activeEnd : Files.size(segment);
+                long start = seek(snapshot.get(i), fromSequence, end);
+                readLines(segment, start, end, (line, offset) -> {
+                    ChangeRecord record;
+                    try {
+                        record = ChangeRecord.fromLine(line);
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                    if (record.getSequence() >= fromSequence) {
+                        consumer.accept(record);
+                    }
+                    return true;
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+            activeIndex.close();
+        }
+        lock.release();
+        lockChannel.close();
+    }
+
+    private void rotate(long firstSequence) throws IOException {
+        if (active != null) {
+            active.close();
+            activeIndex.close();
+        }
+        segments.add(firstSequence);
+        active = FileChannel.open(segmentPath(firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeIndex = FileChannel.open(indexPath(firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        activeSize = 0;
+        activeRecords = 0;
+    }
+
+    /**
+     * 마지막 세그먼트를 처음부터 읽어서 색인을 다시 만들고, 잘린 마지막 줄을 잘라낸 뒤 이어서 쓸 수 있게 연다.
+     * 세그먼트 하나만 읽으므로 기동 비용은 `segment-bytes`를 넘지 않는다.
+     */
+    private long recoverLastSegment() throws IOException {
+        long firstSequence = segments.get(segments.size() - 1);
+        Path segment = segmentPath(firstSequence);
+        long[] last = {firstSequence - 1};
+        long[] records = {0};
+        List<long[]> index = new ArrayList<>();
+        long validEnd = readLines(segment, 0, Files.size(segment), (line, offset) -> {
+            ChangeRecord record;
+            try {
+                record = ChangeRecord.fromLine(line);
+            } catch (RuntimeException e) {
+                return false;
+            }
+            if (records[0]++ % INDEX_INTERVAL == 0) {
+                index.add(new long[]{record.getSequence(), offset});
+            }
+            last[0] = record.getSequence();
+            return true;
+        });
+
+        active = FileChannel.open(segment, StandardOpenOption.WRITE);
+        active.truncate(validEnd);
+        active.position(validEnd);
+        activeIndex = FileChannel.open(indexPath(firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        for (long[] entry : index) {
+            writeIndexEntry(activeIndex, entry[0], entry[1]);
+        }
+        activeSize = validEnd;
+        activeRecords = records[0];
+        return last[0];
+    }
+
+    // 예전 형식(세그먼트 없이 파일 하나)이면 첫 세그먼트로 옮긴다.
+    private void migrateSingleFile() throws IOException {
+        Path single = directory.resolve(baseName);
+        if (!Files.isRegularFile(single)) {
+            return;
+        }
+        long[] first = {0};
+        readLines(single, 0, Files.size(single), (line, offset) -> {
+            try {
+                first[0] = ChangeRecord.fromLine(line).getSequence();
+            } catch (RuntimeException ignored) {
+                // 첫 줄부터 잘렸다.
+            }
+            return false;
+        });
+        if (first[0] == 0) {
+            Files.delete(single);
+        } else {
+            Files.move(single, segmentPath(first[0]));
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, baseName + ".*")) {
+            for (Path path : stream) {
+                String suffix = path.getFileName().toString().substring(baseName.length() + 1);
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    found.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        found.sort(Long::compare);
+        return found;
+    }
+
+    // `fromSequence`를 담고 있는 세그먼트 (첫 시퀀스가 `fromSequence` 이하인 것 중 마지막)
+    private static int firstSegmentFor(List<Long> segments, long fromSequence) {
+        int low = 0;
+        int high = segments.size() - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid) <= fromSequence) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 색인에서 `fromSequence` 이하인 마지막 항목의 위치. 색인이 없거나 `end` 뒤를 가리키면 앞쪽 항목을 쓴다.
+     */
+    private long seek(long firstSequence, long fromSequence, long end) throws IOException {
+        Path indexFile = indexPath(firstSequence);
+        if (!Files.exists(indexFile)) {
+            return 0;
+        }
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        int low = 0;
+        int high = entries.capacity() / INDEX_ENTRY_SIZE - 1;
+        long position = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long sequence = entries.getLong(mid * INDEX_ENTRY_SIZE);
+            long offset = entries.getLong(mid * INDEX_ENTRY_SIZE + Long.BYTES);
+            if (sequence <= fromSequence && offset < end) {
+                position = offset;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return position;
+    }
+
+    private void writeIndexEntry(FileChannel channel, long sequence, long offset) throws IOException {
+        indexEntry.clear();
+        indexEntry.putLong(sequence).putLong(offset).flip();
+        while (indexEntry.hasRemaining()) {
+            channel.write(indexEntry);
+        }
+    }
+
+    /**
+     * `[from, to)` 구간을 줄 단위로 넘긴다. 줄바꿈으로 끝나지 않은 마지막 줄은 넘기지 않는다.
+     *
+     * @return 마지막으로 넘긴(받는 쪽이 `true`를 돌려준) 줄의 끝 위치
+     */
+    private static long readLines(Path file, long from, long to, LineConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(from);
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            long position = from;
+            long lineStart = from;
+            while (position < to) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), to - position));
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    if (!consumer.accept(new String(line.toByteArray(), StandardCharsets.UTF_8), lineStart)) {
+                        return lineStart;
+                    }
+                    line.reset();
+                    lineStart = position;
+                }
+            }
+            return lineStart;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel lockChannel, Path file) throws IOException {
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 같은 JVM 의 다른 인스턴스가 잡고 있다.
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("다른 인스턴스가 쓰고 있는 CDC 저널입니다. file=" + file);
+        }
+        return lock;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(baseName + "." + firstSequence);
+    }
+
+    private Path indexPath(long firstSequence) {
+        return directory.resolve(baseName + "." + firstSequence + INDEX_SUFFIX);
+    }
+
+    private interface LineConsumer {
+        boolean accept(String line, long offset);
+    }
+}
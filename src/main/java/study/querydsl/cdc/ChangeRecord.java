@@ -0,0 +1,42 @@
+package study.querydsl.cdc;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.event.ChangeType;
+
+/**
+ * 구독자에게 전달되는 변경 이벤트. 엔티티 자체가 아니라 "무엇이 바뀌었는지"만 담는다.
+ * 구독자는 필요하면 id 로 다시 조회한다.
+ */
+@Getter
+@ToString
+public class ChangeRecord {
+    private final long sequence;
+    private final String entityName;
+    private final Long id;
+    private final ChangeType changeType;
+    private final long committedAt;
+
+    public ChangeRecord(long sequence, String entityName, Long id, ChangeType changeType, long committedAt) {
+        this.sequence = sequence;
+        this.entityName = entityName;
+        this.id = id;
+        this.changeType = changeType;
+        this.committedAt = committedAt;
+    }
+
+    // 저널 한 줄: sequence \t entityName \t id \t changeType \t committedAt
+    String toLine() {
+        return sequence + "\t" + entityName + "\t" + id + "\t" + changeType + "\t" + committedAt;
+    }
+
+    static ChangeRecord fromLine(String line) {
+        String[] columns = line.split("\t");
+        return new ChangeRecord(
+                Long.parseLong(columns[0]),
+                columns[1],
+                Long.valueOf(columns[2]),
+                ChangeType.valueOf(columns[3]),
+                Long.parseLong(columns[4]));
+    }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.cdc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 구독자 1명. 자기 링 버퍼와 전용 스레드를 가지고, 쌓인 이벤트를 `batchSize`개씩 묶어서 넘긴다.
+ *
+ * 구독자가 느려서 링 버퍼가 넘치면 그 이벤트는 버퍼에 넣지 않는다. 대신 소비 스레드가 빈 구간을 알아챈다.
+ * - 버퍼에서 꺼낸 시퀀스가 마지막으로 받은 것 다음 번호가 아니면 (= 중간이 빠졌으면) 거기서 멈춘다.
+ * - 버퍼가 비었는데 넘친 적이 있으면 (= 마지막 이벤트가 빠졌을 수 있으면) 멈춘다.
+ * 멈추면 마지막으로 처리한 시퀀스 다음부터 저널을 다시 읽어서 따라잡으므로 이벤트를 잃지 않는다.
+ * 핸들러가 예외를 던진 묶음도 버리지 않고 잠시 뒤 같은 지점부터 저널로 다시 넘긴다.
+ */
+@Slf4j
+public class ChangeSubscription implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long RETRY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String name;
+    private final RingBuffer<ChangeRecord> buffer;
+    private final ChangeEventJournal journal;
+    private final int batchSize;
+    private final Consumer<List<ChangeRecord>> handler;
+    private final Thread thread;
+
+    private volatile boolean overflowed;
+    private volatile boolean running = true;
+    // 아래는 소비 스레드만 쓴다.
+    private long lastSequence;
+    private boolean replayNeeded;
+    private boolean gap;
+
+    ChangeSubscription(String name, int capacity, int batchSize, long fromSequence, long currentSequence,
+                       ChangeEventJournal journal, Consumer<List<ChangeRecord>> handler) {
+        this.name = name;
+        this.buffer = new RingBuffer<>(capacity);
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.lastSequence = fromSequence - 1;
+        // 구독 시작 지점이 과거라면 저널부터 읽고 시작한다.
+        this.replayNeeded = fromSequence <= currentSequence;
+        this.thread = new Thread(this::run, "cdc-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void offer(ChangeRecord record) {
+        if (!buffer.offer(record)) {
+            overflowed = true;
+        }
+        LockSupport.unpark(thread);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void run() {
+        List<ChangeRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (replayNeeded) {
+                    replayNeeded = false;
+                    catchUpFromJournal(batch);
+                }
+                int drained = buffer.drain(record -> accept(record, batch), batchSize);
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+                if (gap) {
+                    gap = false;
+                    replayNeeded = true;
+                } else if (drained == 0) {
+                    if (overflowed) {
+                        // 플래그를 내린 뒤 저널을 읽으므로, 그 사이에 넘친 이벤트도 저널에는 이미 있다.
+                        overflowed = false;
+                        replayNeeded = true;
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("CDC 구독자 처리 실패, {} 이후부터 다시 전달: {}", lastSequence, name, e);
+                batch.clear();
+                gap = false;
+                replayNeeded = true;
+                LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 버퍼에서 꺼낸 이벤트 중 `lastSequence` 바로 다음 번호부터 이어지는 것만 `batch`에 담는다.
+     * 이미 받은 번호(저널로 먼저 받은 것)는 건너뛴다.
+     * 번호가 건너뛰면 `gap`을 세우고, 이번에 꺼낸 나머지는 버린다. (저널에서 다시 읽는다)
+     */
+    private void accept(ChangeRecord record, List<ChangeRecord> batch) {
+        long expected = batch.isEmpty() ? lastSequence + 1 : batch.get(batch.size() - 1).getSequence() + 1;
+        if (gap || record.getSequence() < expected) {
+            return;
+        }
+        if (record.getSequence() == expected) {
+            batch.add(record);
+        } else {
+            gap = true;
+        }
+    }
+
+    private void catchUpFromJournal(List<ChangeRecord> batch) {
+        journal.replay(lastSequence + 1, record -> {
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                deliver(batch);
+            }
+        });
+        if (!batch.isEmpty()) {
+            deliver(batch);
+        }
+    }
+
+    // 핸들러가 성공한 뒤에만 `lastSequence`를 올린다.
+    private void deliver(List<ChangeRecord> batch) {
+        handler.accept(new ArrayList<>(batch));
+        lastSequence = batch.get(batch.size() - 1).getSequence();
+        batch.clear();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
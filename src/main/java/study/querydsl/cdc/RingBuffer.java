@@ -0,0 +1,83 @@
+package study.querydsl.cdc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 크기가 고정된 락 프리 링 버퍼. (Dmitry Vyukov 의 bounded MPMC 큐)
+ * 슬롯마다 시퀀스 번호를 두고, 생산자/소비자는 CAS 로 위치만 선점한 뒤 슬롯에 쓰고 읽는다.
+ * 가득 차면 `offer()`는 기다리지 않고 `false`를 반환한다.
+ */
+public class RingBuffer<T> {
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean offer(T item) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 소비자가 아직 한 바퀴 전 값을 가져가지 않았다 = 가득 참
+                return false;
+            }
+            // diff > 0: 다른 생산자가 먼저 선점했다. 다시 시도한다.
+        }
+    }
+
+    public T poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 최대 `max`개를 꺼내서 넘긴다.
+     */
+    public int drain(Consumer<T> consumer, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = poll()) != null) {
+            consumer.accept(item);
+            drained++;
+        }
+        return drained;
+    }
+}
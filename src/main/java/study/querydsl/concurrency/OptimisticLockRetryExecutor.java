@@ -0,0 +1,83 @@
+package study.querydsl.concurrency;
+
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌이 나면 잠깐 쉬었다가 다시 실행한다.
+ * 대기 시간은 `0 ~ min(maxBackoff, baseBackoff * 2^시도횟수)` 사이의 난수(full jitter)라서
+ * 같이 충돌한 스레드들이 같은 시각에 다시 몰리지 않는다.
+ * `action`은 매번 새 트랜잭션으로 실행되어야 한다. (이미 실패한 트랜잭션 안에서 재시도하면 의미가 없다)
+ */
+@Component
+public class OptimisticLockRetryExecutor {
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder attemptCount = new LongAdder();
+    private final LongAdder conflictCount = new LongAdder();
+
+    public OptimisticLockRetryExecutor(@Value("${optimistic-lock.retry.max-attempts:10}") int maxAttempts,
+                                       @Value("${optimistic-lock.retry.base-backoff-ms:5}") long baseBackoffMillis,
+                                       @Value("${optimistic-lock.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            attemptCount.increment();
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                conflictCount.increment();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    public long getAttemptCount() {
+        return attemptCount.sum();
+    }
+
+    public long getConflictCount() {
+        return conflictCount.sum();
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트되었습니다.", e);
+        }
+    }
+
+    // 스프링 예외 변환 여부, 플러시 시점에 따라 예외 타입이 달라서 원인까지 따라가며 확인한다.
+    private static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 키마다 락을 만들지 않고 고정된 개수의 락을 해시로 나눠 쓴다.
+ * 서로 다른 키가 같은 락을 공유할 수는 있지만, 같은 키는 항상 같은 락을 쓴다.
+ */
+public class StripedLock {
+    private final Lock[] locks;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        // 비트 연산으로 나머지를 구하기 위해 2의 거듭제곱으로 올린다.
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new Lock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return locks[hash & mask];
+    }
+}
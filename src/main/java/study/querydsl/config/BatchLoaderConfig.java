@@ -0,0 +1,23 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.annotation.RequestScope;
+import study.querydsl.service.TeamBatchLoader;
+
+@Configuration
+public class BatchLoaderConfig {
+
+    /**
+     * HTTP 요청마다 새 로더를 만든다. 캐시도 요청이 끝나면 같이 버려지므로 다른 요청의 변경을 가리지 않는다.
+     * OSIV 가 켜져 있으면 요청 동안 같은 영속성 컨텍스트를 쓰므로 로드한 `Team`은 영속 상태다.
+     */
+    @Bean
+    @RequestScope
+    public TeamBatchLoader teamBatchLoader(JPAQueryFactory queryFactory,
+                                           @Value("${team.batch-loader.max-batch-size:512}") int maxBatchSize) {
+        return new TeamBatchLoader(queryFactory, maxBatchSize);
+    }
+}
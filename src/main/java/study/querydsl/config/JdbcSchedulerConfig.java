@@ -0,0 +1,22 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class JdbcSchedulerConfig {
+
+    /**
+     * JDBC 는 블로킹 API 이므로 리액티브 체인에서 호출할 때는 이 스케줄러로 넘긴다.
+     * 스레드 수는 커넥션 풀 크기(Hikari 기본 10)에 맞추는 것이 좋다.
+     * 더 많이 둬 봐야 커넥션을 기다리며 블로킹될 뿐이다.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${member.search.jdbc-threads:10}") int threads,
+                                   @Value("${member.search.jdbc-queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "jdbc");
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+import study.querydsl.repository.MemberProjectionRepository;
+import study.querydsl.service.MemberSearchService;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    private final MemberSearchService memberSearchService;
+    private final MemberProjectionRepository memberProjectionRepository;
+
+    // 기존 방식: 조회가 끝날 때까지 톰캣 요청 스레드를 점유한다.
+    @GetMapping("/v1/members")
+    public List<MemberDto> searchMemberV1(MemberSearchCondition condition) {
+        return memberSearchService.search(condition);
+    }
+
+    // 목록 화면용: `fields`를 주면 해당 컬럼만 조회한다. (예: `?fields=USERNAME,TEAM_NAME`)
+    @GetMapping("/v1/member-teams")
+    public List<MemberTeamDto> searchMemberTeams(MemberSearchCondition condition,
+                                                 @RequestParam(required = false) Set<MemberTeamField> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return memberProjectionRepository.findMemberTeams(condition);
+        }
+        return memberProjectionRepository.findMemberTeams(condition, fields);
+    }
+
+    // `Flux`를 반환하면 스프링 MVC 가 비동기 요청으로 전환하여 요청 스레드를 바로 반납하고,
+    // 조회는 `jdbcScheduler`에서 페이지 단위로 수행하며 NDJSON 으로 스트리밍한다.
+    @GetMapping(value = "/v2/members", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberDto> searchMemberV2(MemberSearchCondition condition,
+                                          @RequestParam(defaultValue = "500") int pageSize) {
+        // 0 이하면 빈 페이지만 끝없이 조회하게 되므로 막는다.
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "pageSize 는 1 ~ " + MAX_PAGE_SIZE + " 이어야 합니다. pageSize=" + pageSize);
+        }
+        return memberSearchService.searchStream(condition, pageSize);
+    }
+}
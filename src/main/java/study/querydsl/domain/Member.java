@@ -8,6 +8,8 @@ import javax.persistence.*;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+// 페이지의 팀들의 회원을 팀별 `member_id` 순서로 읽을 때 정렬 없이 인덱스만 따라간다. (`TeamQueryRepository`)
+@Table(indexes = @Index(name = "idx_member_team_id_member_id", columnList = "team_id, member_id"))
 public class Member {
     @Id
     @GeneratedValue
@@ -16,6 +18,10 @@ public class Member {
     private String username;
     private int age;
 
+    // 동시에 수정되면 나중에 커밋하는 쪽이 `OptimisticLockException`으로 실패한다.
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -1,6 +1,9 @@
 package study.querydsl.domain;
 
 import lombok.*;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -16,7 +19,18 @@ public class Team {
     private Long id;
     private String name;
 
+    // 동시에 수정되면 나중에 커밋하는 쪽이 `OptimisticLockException`으로 실패한다.
+    @Version
+    private Long version;
+
+    // `EXTRA`로 두면 `size()`, `contains()`는 컬렉션을 초기화하지 않고 count 쿼리로 처리되고,
+    // 연관관계 주인이 아닌 쪽(mappedBy)의 `add()`는 초기화 없이 큐에 쌓였다가 나중에 반영된다.
+    // 회원이 아주 많은 팀도 회원 1명 추가하자고 전체 회원을 로딩하지 않는다.
+    // 하이버네이트는 컬렉션 변경도 기본으로 `@Version`을 올리는데, 팀 이동은 회원 쪽(`member.version`)에서 충돌을 잡으므로
+    // 회원 컬렉션은 낙관적 락에서 뺀다. (빼지 않으면 같은 팀으로 들어오는 서로 다른 회원들이 `team.version`에서 충돌한다)
     @OneToMany(mappedBy = "team")
+    @OptimisticLock(excluded = true)
+    @LazyCollection(LazyCollectionOption.EXTRA)
     List<Member> members = new ArrayList<>();
 
     public Team(String name) {
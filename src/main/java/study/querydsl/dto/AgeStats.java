@@ -0,0 +1,40 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * `count`, `sum`, `min`, `max`는 부분 결과끼리 그대로 합칠 수 있고, `avg`는 `sum / count`로 구한다.
+ * (부분 평균끼리 평균을 내면 틀린 값이 나온다)
+ */
+@Getter
+@ToString
+public class AgeStats {
+    private final long count;
+    private final long sum;
+    private final int min;
+    private final int max;
+
+    public AgeStats(long count, long sum, int min, int max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public static AgeStats empty() {
+        return new AgeStats(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    public double getAvg() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public AgeStats merge(AgeStats other) {
+        return new AgeStats(
+                count + other.count,
+                sum + other.sum,
+                Math.min(min, other.min),
+                Math.max(max, other.max));
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 키셋(no-offset) 페이징 결과.
+ * 다음 페이지는 `lastMemberId` 이후부터 조회한다.
+ */
+@Getter
+@AllArgsConstructor
+public class MemberSlice {
+    private final List<MemberDto> content;
+    private final Long lastMemberId;
+    private final boolean last;
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberTeamDto {
+    private String username;
+    private int age;
+    private String teamName;
+
+    @QueryProjection
+    public MemberTeamDto(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+/**
+ * `MemberTeamDto` 중에서 조회할 필드. 요청하지 않은 필드는 select 절에서 빠진다.
+ */
+public enum MemberTeamField {
+    USERNAME, AGE, TEAM_NAME
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class TeamWithMembersDto {
+    private Long teamId;
+    private String name;
+    private List<MemberDto> members = new ArrayList<>();
+
+    public TeamWithMembersDto(Long teamId, String name) {
+        this.teamId = teamId;
+        this.name = name;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * 트랜잭션이 커밋된 뒤에 발행되는 엔티티 변경 이벤트.
+ * `entity`는 커밋 시점의 엔티티 인스턴스이고, 삭제 이벤트에서는 삭제 직전 상태다.
+ * `previousState`는 수정 이벤트에서만 채워지는 수정 전 값이다. (프로퍼티 이름 -> 값, 모르면 `null`)
+ */
+@Getter
+@ToString(of = {"entityType", "id", "changeType"})
+public class EntityChangeEvent {
+    private final Class<?> entityType;
+    private final Object id;
+    private final ChangeType changeType;
+    private final Object entity;
+    private final Map<String, Object> previousState;
+
+    public EntityChangeEvent(Class<?> entityType, Object id, ChangeType changeType, Object entity) {
+        this(entityType, id, changeType, entity, null);
+    }
+
+    public EntityChangeEvent(Class<?> entityType, Object id, ChangeType changeType, Object entity,
+                             Map<String, Object> previousState) {
+        this.entityType = entityType;
+        this.id = id;
+        this.changeType = changeType;
+        this.entity = entity;
+        this.previousState = previousState;
+    }
+}
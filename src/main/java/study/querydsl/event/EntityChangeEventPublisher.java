@@ -0,0 +1,96 @@
+package study.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 하이버네이트 post-commit 리스너를 등록하고, 커밋된 변경을 스프링 이벤트(`EntityChangeEvent`)로 바꿔서 발행한다.
+ * 롤백된 변경은 발행되지 않는다.
+ * 벌크 연산(`queryFactory.update()`, `delete()`)은 영속성 컨텍스트를 거치지 않으므로 여기에 잡히지 않는다.
+ */
+@Component
+@Lazy(false) // 지연 초기화 프로필에서도 리스너는 기동 시 등록되어야 한다.
+@RequiredArgsConstructor
+public class EntityChangeEventPublisher implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private final EntityManagerFactory emf;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getPersister(), event.getId(), ChangeType.INSERT, event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        eventPublisher.publishEvent(new EntityChangeEvent(event.getPersister().getMappedClass(), event.getId(),
+                ChangeType.UPDATE, event.getEntity(), previousState(event)));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId(), ChangeType.DELETE, event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    // 분리된 엔티티를 `update()`한 경우처럼 하이버네이트가 수정 전 값을 모르면 `null`이다.
+    private static Map<String, Object> previousState(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            return null;
+        }
+        String[] propertyNames = event.getPersister().getPropertyNames();
+        Map<String, Object> previous = new HashMap<>(propertyNames.length * 2);
+        for (int i = 0; i < propertyNames.length; i++) {
+            previous.put(propertyNames[i], oldState[i]);
+        }
+        return previous;
+    }
+
+    private void publish(EntityPersister persister, Object id, ChangeType changeType, Object entity) {
+        eventPublisher.publishEvent(new EntityChangeEvent(persister.getMappedClass(), id, changeType, entity));
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 목록 화면용 조회. 엔티티를 조회해서 DTO 로 바꾸지 않고 처음부터 DTO 로 조회한다.
+ * 엔티티를 조회하면 모든 컬럼을 읽고, `team` 프록시를 만들고, 영속성 컨텍스트에 스냅샷까지 남기지만
+ * DTO 로 조회하면 필요한 컬럼만 읽고 영속성 컨텍스트에는 아무것도 남지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberProjectionRepository {
+    private final JPAQueryFactory queryFactory;
+
+    public List<MemberTeamDto> findMemberTeams(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(member.username, member.age, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchConditions(condition))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    /**
+     * 요청한 필드만 select 절에 넣는다. 팀 이름이 필요 없으면(조건에도 없으면) `team` 조인도 생략한다.
+     * 요청하지 않은 필드는 DTO 에서 기본값(`null`, `0`)으로 남는다.
+     */
+    public List<MemberTeamDto> findMemberTeams(MemberSearchCondition condition, Set<MemberTeamField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("조회할 필드가 없습니다.");
+        }
+
+        Map<MemberTeamField, Expression<?>> columns = new EnumMap<>(MemberTeamField.class);
+        columns.put(MemberTeamField.USERNAME, member.username);
+        columns.put(MemberTeamField.AGE, member.age);
+        columns.put(MemberTeamField.TEAM_NAME, team.name);
+        columns.keySet().retainAll(fields);
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(columns.values().toArray(new Expression<?>[0]))
+                .from(member);
+        if (fields.contains(MemberTeamField.TEAM_NAME) || StringUtils.hasText(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+        List<Tuple> rows = query
+                .where(searchConditions(condition))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        return rows.stream()
+                .map(row -> {
+                    MemberTeamDto dto = new MemberTeamDto();
+                    if (fields.contains(MemberTeamField.USERNAME)) {
+                        dto.setUsername(row.get(member.username));
+                    }
+                    if (fields.contains(MemberTeamField.AGE)) {
+                        dto.setAge(row.get(member.age));
+                    }
+                    if (fields.contains(MemberTeamField.TEAM_NAME)) {
+                        dto.setTeamName(row.get(team.name));
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private BooleanExpression[] searchConditions(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.QMemberDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberQueryRepository {
+    private final JPAQueryFactory queryFactory;
+
+    public List<MemberDto> search(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    /**
+     * `offset`을 쓰면 뒤로 갈수록 앞의 row 를 계속 읽고 버리므로,
+     * 마지막으로 읽은 `member_id` 이후부터 `size` 만큼만 읽는다.
+     */
+    public MemberSlice searchAfter(MemberSearchCondition condition, Long lastMemberId, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다. size=" + size);
+        }
+        // 다음 페이지 존재 여부를 알기 위해 1개 더 읽는다.
+        List<Tuple> rows = queryFactory
+                .select(member.id, new QMemberDto(member.username, member.age))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        memberIdGt(lastMemberId),
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .limit(size + 1)
+                .fetch();
+
+        boolean last = rows.size() <= size;
+        List<Tuple> page = last ? rows : rows.subList(0, size);
+        Long nextLastMemberId = page.isEmpty() ? lastMemberId : page.get(page.size() - 1).get(member.id);
+
+        List<MemberDto> content = page.stream()
+                .map(row -> row.get(1, MemberDto.class))
+                .collect(Collectors.toList());
+
+        return new MemberSlice(content, nextLastMemberId, last);
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
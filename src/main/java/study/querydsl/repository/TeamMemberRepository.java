@@ -0,0 +1,56 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+import java.util.List;
+
+import static study.querydsl.domain.QMember.member;
+
+/**
+ * `Team.members` 컬렉션을 거치지 않고 팀 소속 회원을 다룬다.
+ * 모두 `member.team_id` 조건으로 `member` 테이블만 조회하므로 `team`은 조인하지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamMemberRepository {
+    private final JPAQueryFactory queryFactory;
+
+    public Page<MemberDto> findMembers(Long teamId, Pageable pageable) {
+        List<MemberDto> content = queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .where(member.team.id.eq(teamId))
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 첫 페이지인데 content 가 pageSize 보다 작거나, 마지막 페이지면 count 쿼리를 생략한다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMembers(teamId));
+    }
+
+    public long countMembers(Long teamId) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId))
+                .fetchCount();
+    }
+
+    public boolean containsMember(Long teamId, Long memberId) {
+        Integer found = queryFactory
+                .selectOne()
+                .from(member)
+                .where(member.team.id.eq(teamId), member.id.eq(memberId))
+                .fetchFirst();
+        return found != null;
+    }
+}
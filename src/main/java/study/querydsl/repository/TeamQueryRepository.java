@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamWithMembersDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.domain.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamQueryRepository {
+    private static final String MEMBERS_PER_TEAM_SQL =
+            "select team_id, username, age from ("
+                    + " select m.team_id, m.username, m.age, m.member_id,"
+                    + " row_number() over (partition by m.team_id order by m.member_id) as rn"
+                    + " from member m where m.team_id in (:teamIds)"
+                    + ") ranked where rn <= :cap order by team_id, member_id";
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+
+    /**
+     * 팀 + 회원 목록 페이징.
+     * 컬렉션(`team.members`)을 페치 조인하고 `offset`/`limit`을 걸면 하이버네이트는 전부 읽은 뒤 메모리에서 페이징한다. (HHH000104)
+     * 그래서 2단계로 나눈다.
+     * 1. 팀만 SQL 로 페이징한다.
+     * 2. 페이지의 팀들의 회원을 `team_id in (...)` 쿼리 한 번으로 읽되, 팀별로 `member_id`가 작은 순서로 cap 명만 남긴다.
+     *    JPQL 에는 윈도 함수가 없으므로 `ROW_NUMBER() OVER (PARTITION BY team_id ...)` 네이티브 쿼리를 쓴다.
+     *    (팀별 cap 을 상관 서브쿼리로 걸면 팀 크기 k 에 대해 O(k^2) 로 읽고, 팀마다 `limit` 쿼리를 날리면 N+1 이 된다.)
+     */
+    public Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable, int maxMembersPerTeam) {
+        if (maxMembersPerTeam <= 0) {
+            throw new IllegalArgumentException("maxMembersPerTeam 은 1 이상이어야 합니다. maxMembersPerTeam=" + maxMembersPerTeam);
+        }
+
+        List<Tuple> teamRows = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, TeamWithMembersDto> teams = new LinkedHashMap<>();
+        for (Tuple row : teamRows) {
+            teams.put(row.get(team.id), new TeamWithMembersDto(row.get(team.id), row.get(team.name)));
+        }
+
+        if (!teams.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> memberRows = em.createNativeQuery(MEMBERS_PER_TEAM_SQL)
+                    .setParameter("teamIds", teams.keySet())
+                    .setParameter("cap", maxMembersPerTeam)
+                    .getResultList();
+            for (Object[] row : memberRows) {
+                teams.get(((Number) row[0]).longValue()).getMembers()
+                        .add(new MemberDto((String) row[1], ((Number) row[2]).intValue()));
+            }
+        }
+
+        List<TeamWithMembersDto> content = new ArrayList<>(teams.values());
+        return PageableExecutionUtils.getPage(
+                content,
+                pageable,
+                () -> queryFactory.selectFrom(team).fetchCount());
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.support.InListChunks;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.domain.QMember.member;
+
+/**
+ * 회원 여러 명을 `fetchOne()` 반복 대신 `in` 쿼리로 한 번에 조회한다.
+ * 반환하는 맵은 요청한 순서를 따르고, 없는 회원은 빠진다.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MemberBatchLookupService {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final int maxInSize;
+
+    public MemberBatchLookupService(EntityManager em,
+                                    JPAQueryFactory queryFactory,
+                                    @Value("${member.batch-lookup.max-in-size:512}") int maxInSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.maxInSize = maxInSize;
+    }
+
+    public Map<Long, Member> findAllByIds(Collection<Long> ids) {
+        return findAllByIds(ids, false);
+    }
+
+    /**
+     * @param persistenceContextFirst `true`면 이미 영속성 컨텍스트에 있는 회원은 DB 에 묻지 않는다.
+     */
+    public Map<Long, Member> findAllByIds(Collection<Long> ids, boolean persistenceContextFirst) {
+        Map<Long, Member> found = new HashMap<>();
+        List<Long> toQuery = new ArrayList<>();
+        for (Long id : ids) {
+            Member managed = persistenceContextFirst ? findInPersistenceContext(id) : null;
+            if (managed != null) {
+                found.put(id, managed);
+            } else {
+                toQuery.add(id);
+            }
+        }
+
+        for (List<Long> chunk : InListChunks.of(toQuery, maxInSize)) {
+            for (Member loaded : queryFactory.selectFrom(member).where(member.id.in(chunk)).fetch()) {
+                found.put(loaded.getId(), loaded);
+            }
+        }
+
+        Map<Long, Member> ordered = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Member loaded = found.get(id);
+            if (loaded != null) {
+                ordered.put(id, loaded);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 회원명은 유일하지 않으므로 회원명별로 목록(`member_id` 순)을 돌려준다.
+     */
+    public Map<String, List<Member>> findAllByUsernames(Collection<String> usernames) {
+        Map<String, List<Member>> found = new HashMap<>();
+        for (List<String> chunk : InListChunks.of(usernames, maxInSize)) {
+            List<Member> loaded = queryFactory
+                    .selectFrom(member)
+                    .where(member.username.in(chunk))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Member each : loaded) {
+                found.computeIfAbsent(each.getUsername(), username -> new ArrayList<>()).add(each);
+            }
+        }
+
+        Map<String, List<Member>> ordered = new LinkedHashMap<>();
+        for (String username : usernames) {
+            List<Member> members = found.get(username);
+            if (members != null) {
+                ordered.put(username, members);
+            }
+        }
+        return ordered;
+    }
+
+    // `em.find()`와 달리 영속성 컨텍스트에 없으면 DB 를 조회하지 않고 `null`을 반환한다.
+    private Member findInPersistenceContext(Long id) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        return (Member) session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.repository.MemberQueryRepository;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MemberSearchService {
+    private final MemberQueryRepository memberQueryRepository;
+    private final Scheduler jdbcScheduler;
+
+    public List<MemberDto> search(MemberSearchCondition condition) {
+        return memberQueryRepository.search(condition);
+    }
+
+    /**
+     * 키셋 페이지 단위로 끊어서 조회하고 `Flux`로 흘려보낸다.
+     * 다음 페이지는 구독자가 이전 페이지를 다 소비했을 때만 조회하므로(prefetch = 1),
+     * 느린 클라이언트가 있어도 메모리에 쌓이는 것은 최대 1~2 페이지 분량이다.
+     */
+    public Flux<MemberDto> searchStream(MemberSearchCondition condition, int pageSize) {
+        return fetchSlice(condition, null, pageSize)
+                .expand(slice -> slice.isLast()
+                        ? Mono.empty()
+                        : fetchSlice(condition, slice.getLastMemberId(), pageSize))
+                .concatMapIterable(MemberSlice::getContent, 1);
+    }
+
+    private Mono<MemberSlice> fetchSlice(MemberSearchCondition condition, Long lastMemberId, int pageSize) {
+        return Mono.fromCallable(() -> memberQueryRepository.searchAfter(condition, lastMemberId, pageSize))
+                .subscribeOn(jdbcScheduler);
+    }
+}
@@ -0,0 +1,138 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.domain.Team;
+import study.querydsl.support.InListChunks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * DataLoader 방식의 팀 조회.
+ * `load()`는 바로 조회하지 않고 요청을 모아두었다가, `dispatch()` 때 모인 팀 id 를 `in` 쿼리 한 번으로 조회한다.
+ * 한 번 요청한 팀 id 는 이 로더가 살아있는 동안(요청 1건) 같은 `CompletableFuture`를 돌려준다.
+ *
+ * 요청 범위 빈(`BatchLoaderConfig`)으로 쓰며, 여러 스레드에서 호출해도 된다.
+ * 없는 팀은 `null`로 완료된다.
+ *
+ * 돌려주는 future 는 `dispatch()` 전에 `join()`/`get()`으로 기다리면 그때 모인 요청을 먼저 보낸다.
+ * (`dispatch()`를 부를 곳을 놓쳐도 영원히 기다리지 않는다. 여기서 이어 붙인 future 도 마찬가지다)
+ */
+public class TeamBatchLoader {
+    private final JPAQueryFactory queryFactory;
+    private final int maxBatchSize;
+
+    private final Map<Long, CompletableFuture<Team>> cache = new HashMap<>();
+    private final Map<Long, CompletableFuture<Team>> queue = new LinkedHashMap<>();
+
+    public TeamBatchLoader(JPAQueryFactory queryFactory, int maxBatchSize) {
+        this.queryFactory = queryFactory;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public CompletableFuture<Team> load(Long teamId) {
+        boolean full;
+        CompletableFuture<Team> future;
+        synchronized (this) {
+            future = cache.get(teamId);
+            if (future != null) {
+                return future;
+            }
+            future = new DispatchingFuture<>();
+            cache.put(teamId, future);
+            queue.put(teamId, future);
+            full = queue.size() >= maxBatchSize;
+        }
+        // 한 번에 너무 많이 모이면 기다리지 않고 바로 보낸다.
+        if (full) {
+            dispatch();
+        }
+        return future;
+    }
+
+    public CompletableFuture<List<Team>> loadMany(Collection<Long> teamIds) {
+        List<CompletableFuture<Team>> futures = teamIds.stream()
+                .map(this::load)
+                .collect(Collectors.toList());
+        DispatchingFuture<List<Team>> all = new DispatchingFuture<>();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((done, e) -> {
+            if (e != null) {
+                all.completeExceptionally(e);
+            } else {
+                all.complete(futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+            }
+        });
+        return all;
+    }
+
+    public void dispatch() {
+        Map<Long, CompletableFuture<Team>> batch;
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(queue);
+            queue.clear();
+        }
+
+        try {
+            Map<Long, Team> found = new HashMap<>();
+            for (List<Long> chunk : InListChunks.of(new ArrayList<>(batch.keySet()), maxBatchSize)) {
+                for (Team loaded : queryFactory.selectFrom(team).where(team.id.in(chunk)).fetch()) {
+                    found.put(loaded.getId(), loaded);
+                }
+            }
+            batch.forEach((teamId, future) -> future.complete(found.get(teamId)));
+        } catch (RuntimeException e) {
+            // 실패한 id 는 캐시에서 빼서 다음 요청 때 다시 조회할 수 있게 한다.
+            synchronized (this) {
+                batch.keySet().forEach(cache::remove);
+            }
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private class DispatchingFuture<T> extends CompletableFuture<T> {
+
+        @Override
+        public T join() {
+            dispatchIfPending();
+            return super.join();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            dispatchIfPending();
+            return super.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            dispatchIfPending();
+            return super.get(timeout, unit);
+        }
+
+        // `thenApply()` 등으로 이어 붙인 future 도 기다릴 때 보내도록 같은 타입으로 만든다.
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new DispatchingFuture<>();
+        }
+
+        private void dispatchIfPending() {
+            if (!isDone()) {
+                dispatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.concurrency.OptimisticLockRetryExecutor;
+import study.querydsl.concurrency.StripedLock;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.locks.Lock;
+
+@Service
+public class TeamMembershipService {
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticLockRetryExecutor retryExecutor;
+    private final StripedLock memberLocks;
+
+    public TeamMembershipService(EntityManager em,
+                                 TransactionTemplate transactionTemplate,
+                                 OptimisticLockRetryExecutor retryExecutor,
+                                 @Value("${member.lock.stripes:64}") int memberLockStripes) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+        this.memberLocks = new StripedLock(memberLockStripes);
+    }
+
+    /**
+     * 팀은 `getReference()`로 프록시만 얻어온다.
+     * `team.getMembers().add()`는 `EXTRA` 컬렉션이라 초기화 없이 큐에 쌓이고,
+     * 실제 반영은 연관관계 주인인 `member.team_id` 업데이트 1번으로 끝난다.
+     *
+     * `Team.members`는 `@OptimisticLock(excluded = true)`라서 회원 추가가 팀의 `@Version`을 올리지 않는다.
+     * 그래서 충돌은 같은 회원을 동시에 옮길 때(`member.version`)만 난다.
+     * 그래서 같은 프로세스 안에서는 회원별 락으로 같은 회원의 이동만 줄을 세우고 (다른 회원은 같은 팀으로도 동시에 옮긴다),
+     * 다른 프로세스와의 충돌은 재시도로 처리한다.
+     * 재시도마다 새 트랜잭션으로 실행해야 하므로 이미 트랜잭션 안에서 호출하면 예외가 난다.
+     * (바깥 트랜잭션에 참여하면 충돌이 바깥 커밋 때 나서 재시도할 수 없다)
+     */
+    public void changeTeam(Long memberId, Long teamId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("changeTeam 은 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        retryExecutor.execute(() -> {
+            Lock lock = memberLocks.get(memberId);
+            lock.lock();
+            try {
+                return transactionTemplate.execute(status -> {
+                    Member member = em.find(Member.class, memberId);
+                    if (member == null) {
+                        throw new IllegalArgumentException("회원이 존재하지 않습니다. memberId=" + memberId);
+                    }
+                    member.changeTeam(em.getReference(Team.class, teamId));
+                    return member;
+                });
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.AgeStats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 팀 단위로 `Member`를 샤드에 나눠 저장한다. (샤드 키 = 팀 id)
+ * 팀과 그 팀의 회원은 항상 같은 샤드에 있으므로 팀 조인이 샤드 안에서 끝난다.
+ *
+ * - 새 팀은 팀 이름의 해시로 샤드를 고르고, 이후에는 팀 id 의 상위 비트로 샤드를 찾는다.
+ * - 한 팀에 대한 쿼리는 그 샤드로만 보낸다.
+ * - 여러 팀에 걸친 집계는 모든 샤드에 병렬로 보낸 뒤 합친다.
+ *   `count`, `sum`, `min`, `max`는 그대로 합치고, `avg`는 합친 `sum / count`로 구한다.
+ */
+public class MemberShardRouter implements AutoCloseable {
+    private final List<Shard> shards;
+    private final ExecutorService executor;
+
+    public MemberShardRouter(List<Shard> shards) {
+        this.shards = shards;
+        this.executor = Executors.newFixedThreadPool(shards.size());
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public Shard shardOfTeam(Long teamId) {
+        return shards.get(Shard.shardIndexOf(teamId));
+    }
+
+    public Team createTeam(String name) {
+        Shard shard = shards.get(Math.floorMod(name.hashCode(), shards.size()));
+        return shard.inTransaction(em -> {
+            Team newTeam = new Team(name);
+            em.persist(newTeam);
+            return newTeam;
+        });
+    }
+
+    public Member createMember(String username, int age, Long teamId) {
+        return shardOfTeam(teamId).inTransaction(em -> {
+            Member newMember = new Member(username, age, em.getReference(Team.class, teamId));
+            em.persist(newMember);
+            return newMember;
+        });
+    }
+
+    /**
+     * 단일 샤드 쿼리: 팀 id 로 샤드를 찾아서 그 샤드에서만 실행한다.
+     */
+    public <T> T queryTeam(Long teamId, Function<JPAQueryFactory, T> query) {
+        return shardOfTeam(teamId).query(query);
+    }
+
+    /**
+     * 전체 샤드 쿼리: 모든 샤드에서 병렬로 실행하고 샤드 순서대로 결과를 돌려준다.
+     */
+    public <T> List<T> queryAll(Function<JPAQueryFactory, T> query) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> shard.query(query), executor))
+                .collect(Collectors.toList());
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    public long countMembers(Long teamId) {
+        return queryTeam(teamId, queryFactory -> queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId))
+                .fetchCount());
+    }
+
+    public AgeStats ageStats() {
+        return queryAll(queryFactory -> toAgeStats(queryFactory
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .fetchOne()))
+                .stream()
+                .reduce(AgeStats.empty(), AgeStats::merge);
+    }
+
+    public Map<String, AgeStats> ageStatsByTeam() {
+        List<List<Tuple>> perShard = queryAll(queryFactory -> queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch());
+
+        // 같은 이름의 팀이 여러 샤드에 있을 수 있으므로 이름으로 다시 합친다.
+        Map<String, AgeStats> merged = new LinkedHashMap<>();
+        for (List<Tuple> rows : perShard) {
+            for (Tuple row : rows) {
+                merged.merge(row.get(team.name), toAgeStats(row), AgeStats::merge);
+            }
+        }
+        return merged;
+    }
+
+    // 위치로 읽는다. 컬럼 순서: (그룹 키...), count, sum, min, max
+    private static AgeStats toAgeStats(Tuple row) {
+        int offset = row.size() - 4;
+        long count = row.get(offset, Number.class).longValue();
+        if (count == 0) {
+            return AgeStats.empty();
+        }
+        return new AgeStats(
+                count,
+                row.get(offset + 1, Number.class).longValue(),
+                row.get(offset + 2, Number.class).intValue(),
+                row.get(offset + 3, Number.class).intValue());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        List<RuntimeException> failures = new ArrayList<>();
+        for (Shard shard : shards) {
+            try {
+                shard.close();
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+}
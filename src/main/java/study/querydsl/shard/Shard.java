@@ -0,0 +1,121 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 샤드 하나 = 데이터소스 하나 + `study.querydsl.domain` 엔티티만 매핑한 엔티티 매니저 팩토리 하나.
+ * 스프링이 관리하는 기본 데이터소스와는 별개이므로 트랜잭션도 직접(resource-local) 관리한다.
+ *
+ * 샤드마다 시퀀스를 따로 쓰면 id 가 겹치므로, 시퀀스 시작값을 `index << ID_BITS`로 옮겨서
+ * id 의 상위 비트만 보고도 어느 샤드의 row 인지 알 수 있게 한다.
+ * `ddl-auto`가 `create`로 시작하면 직접 옮기고, 아니면 (스키마를 미리 만들어 둔 경우) 기동할 때 확인만 해서
+ * 범위가 다르면 바로 실패한다. 그대로 두면 모든 id 가 0번 샤드로 라우팅된다.
+ * 확인에 시퀀스 값을 하나 쓰므로 기동할 때마다 id 가 하나씩 빈다.
+ */
+public class Shard implements AutoCloseable {
+    static final int ID_BITS = 40;
+
+    @Getter
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean emfBean;
+    private final EntityManagerFactory emf;
+
+    public Shard(int index, String url, String username, String password, String ddlAuto) {
+        this.index = index;
+        this.dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName("org.h2.Driver")
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        this.dataSource.setPoolName("shard-" + index);
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.hbm2ddl.auto", ddlAuto);
+        jpaProperties.put("hibernate.physical_naming_strategy", "org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy");
+        jpaProperties.put("hibernate.implicit_naming_strategy", "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy");
+
+        this.emfBean = new LocalContainerEntityManagerFactoryBean();
+        emfBean.setPersistenceUnitName("shard-" + index);
+        emfBean.setDataSource(dataSource);
+        emfBean.setPackagesToScan("study.querydsl.domain");
+        emfBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        emfBean.setJpaPropertyMap(jpaProperties);
+        emfBean.afterPropertiesSet();
+        this.emf = emfBean.getObject();
+
+        if (ddlAuto.startsWith("create")) {
+            inTransaction(em -> em.createNativeQuery(
+                    "alter sequence hibernate_sequence restart with " + (((long) index << ID_BITS) + 1))
+                    .executeUpdate());
+        }
+        try {
+            verifySequenceRange();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void verifySequenceRange() {
+        long next = inTransaction(em -> ((Number) em.createNativeQuery("select next value for hibernate_sequence")
+                .getSingleResult()).longValue());
+        if (shardIndexOf(next) != index) {
+            throw new IllegalStateException(String.format(
+                    "샤드 %d 의 hibernate_sequence(%d)가 이 샤드의 id 범위가 아닙니다. "
+                            + "`alter sequence hibernate_sequence restart with %d`로 옮기세요.",
+                    index, next, ((long) index << ID_BITS) + 1));
+        }
+    }
+
+    static int shardIndexOf(Long id) {
+        return (int) (id >>> ID_BITS);
+    }
+
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    public <T> T query(Function<JPAQueryFactory, T> query) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        emfBean.destroy();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * `sharding.enabled=true`일 때 `sharding.urls`(쉼표 구분)의 각 URL 을 샤드로 등록한다.
+ * 샤드 순서는 id 에 들어가므로 운영 중에 바꾸면 안 된다. (뒤에 추가만 가능)
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public MemberShardRouter memberShardRouter(@Value("${sharding.urls}") String[] urls,
+                                               @Value("${sharding.username:sa}") String username,
+                                               @Value("${sharding.password:}") String password,
+                                               @Value("${sharding.ddl-auto:none}") String ddlAuto) {
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            shards.add(new Shard(i, urls[i].trim(), username, password, ddlAuto));
+        }
+        return new MemberShardRouter(shards);
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 기동이 끝나면 JVM 시작부터 걸린 시간과 단계(`ApplicationStartup` step)별 누적 시간을 출력한다.
+ * `startup.benchmark=true`면 자기 자신에게 `/hello` 요청을 보내 첫 응답까지 걸린 시간을 재고 종료한다.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class StartupReporter {
+    private final boolean benchmark;
+    private final int top;
+
+    public StartupReporter(@Value("${startup.benchmark:false}") boolean benchmark,
+                           @Value("${startup.report.top:15}") int top) {
+        this.benchmark = benchmark;
+        this.top = top;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        log.info("time-to-ready = {}ms", millisSinceJvmStart());
+        reportPhases(context.getApplicationStartup());
+
+        if (benchmark) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            requestHello(port);
+            log.info("time-to-first-request = {}ms", millisSinceJvmStart());
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void reportPhases(ApplicationStartup applicationStartup) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        // 다 출력하고 나면 버퍼를 비워서 메모리를 돌려준다.
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline();
+
+        // 같은 이름의 step(예: `spring.beans.instantiate`)은 합산한다. step 은 중첩되므로 합이 전체 시간보다 클 수 있다.
+        Map<String, Duration> durationByStep = new LinkedHashMap<>();
+        Map<String, Integer> countByStep = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent timelineEvent : timeline.getEvents()) {
+            String name = timelineEvent.getStartupStep().getName();
+            durationByStep.merge(name, timelineEvent.getDuration(), Duration::plus);
+            countByStep.merge(name, 1, Integer::sum);
+        }
+
+        log.info("startup phases (top {})", top);
+        durationByStep.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .forEach(entry -> log.info("  {} {}ms (x{})",
+                        entry.getKey(), entry.getValue().toMillis(), countByStep.get(entry.getKey())));
+    }
+
+    private void requestHello(int port) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/hello").openConnection();
+            try (InputStream body = connection.getInputStream()) {
+                body.readAllBytes();
+            }
+            connection.disconnect();
+        } catch (IOException e) {
+            throw new IllegalStateException("첫 요청에 실패했습니다.", e);
+        }
+    }
+
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class QueryShapeStats {
+    private final String query;
+    private final long executionCount;
+    private final long meanTimeMillis;
+    private final long maxTimeMillis;
+    private final long totalTimeMillis;
+    private final long rowCount;
+    private final long cacheHitCount;
+    private final long cacheMissCount;
+}
@@ -0,0 +1,24 @@
+package study.querydsl.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * `DELETE /actuator/querystats`: 통계 초기화
+ * 인증 없이 누구나 통계를 지울 수 있으므로 기본으로는 만들지 않는다. (`query-stats.endpoint.clear-enabled: true`일 때만)
+ */
+@Component
+@EndpointWebExtension(endpoint = QueryStatsEndpoint.class)
+@ConditionalOnProperty(name = "query-stats.endpoint.clear-enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class QueryStatsClearExtension {
+    private final QueryStatsCollector collector;
+
+    @DeleteOperation
+    public void clear() {
+        collector.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.cache.QueryResultCache;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 하이버네이트 `Statistics`를 쿼리 모양(JPQL)별로 정리한다.
+ *
+ * 샘플링 모드에서는 `period-ms`마다 `window-ms` 동안만 통계를 켜 둔다.
+ * 통계를 켜 두면 쿼리 실행마다 시간 측정과 맵 갱신이 붙으므로, 운영에서는 일부 구간만 수집해서 비용을 줄인다.
+ * (카운트는 수집 구간에서만 늘어나므로 절대값이 아니라 비율과 순위로 봐야 한다)
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class QueryStatsCollector {
+    private final Statistics statistics;
+    private final QueryResultCache queryResultCache;
+    private final boolean sampling;
+    private final long ticksPerPeriod;
+    private final int top;
+    private long tick;
+
+    public QueryStatsCollector(EntityManagerFactory emf,
+                               QueryResultCache queryResultCache,
+                               @Value("${query-stats.sampling.enabled:false}") boolean sampling,
+                               @Value("${query-stats.sampling.window-ms:10000}") long windowMillis,
+                               @Value("${query-stats.sampling.period-ms:60000}") long periodMillis,
+                               @Value("${query-stats.report.top:10}") int top) {
+        if (windowMillis <= 0 || periodMillis < windowMillis) {
+            throw new IllegalArgumentException(String.format(
+                    "query-stats.sampling 설정이 잘못되었습니다. 0 < window-ms(%d) <= period-ms(%d) 이어야 합니다.",
+                    windowMillis, periodMillis));
+        }
+        if (top < 1) {
+            throw new IllegalArgumentException("query-stats.report.top 은 1 이상이어야 합니다. top=" + top);
+        }
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        this.queryResultCache = queryResultCache;
+        this.sampling = sampling;
+        this.ticksPerPeriod = Math.max(1, periodMillis / windowMillis);
+        this.top = top;
+    }
+
+    // 샘플링 모드: 주기의 첫 구간에만 통계를 켠다.
+    @Scheduled(fixedRateString = "${query-stats.sampling.window-ms:10000}")
+    public synchronized void sample() {
+        if (!sampling) {
+            return;
+        }
+        statistics.setStatisticsEnabled(tick++ % ticksPerPeriod == 0);
+    }
+
+    @Scheduled(fixedRateString = "${query-stats.report.interval-ms:60000}",
+            initialDelayString = "${query-stats.report.interval-ms:60000}")
+    public void reportSlowQueries() {
+        List<QueryShapeStats> slowest = topByMaxTime();
+        if (slowest.isEmpty()) {
+            return;
+        }
+        log.info("slow query top {}", slowest.size());
+        for (QueryShapeStats query : slowest) {
+            log.info("  max={}ms mean={}ms count={} rows={} | {}",
+                    query.getMaxTimeMillis(), query.getMeanTimeMillis(), query.getExecutionCount(),
+                    query.getRowCount(), query.getQuery().replace('\n', ' '));
+        }
+    }
+
+    public QueryStatsReport report() {
+        return new QueryStatsReport(
+                statistics.isStatisticsEnabled(),
+                statistics.getStartTime(),
+                statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getCollectionLoadCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getPrepareStatementCount(),
+                statistics.getFlushCount(),
+                ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()),
+                ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+                queryResultCache.stats(),
+                queryShapes().stream()
+                        .sorted(Comparator.comparingLong(QueryShapeStats::getTotalTimeMillis).reversed())
+                        .collect(Collectors.toList()));
+    }
+
+    public List<QueryShapeStats> topByMaxTime() {
+        return queryShapes().stream()
+                .sorted(Comparator.comparingLong(QueryShapeStats::getMaxTimeMillis).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        statistics.clear();
+    }
+
+    private List<QueryShapeStats> queryShapes() {
+        return Arrays.stream(statistics.getQueries())
+                .map(this::toQueryShapeStats)
+                .filter(query -> query.getExecutionCount() > 0)
+                .collect(Collectors.toList());
+    }
+
+    private QueryShapeStats toQueryShapeStats(String query) {
+        QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+        long count = queryStatistics.getExecutionCount();
+        long mean = queryStatistics.getExecutionAvgTime();
+        return new QueryShapeStats(
+                query,
+                count,
+                mean,
+                queryStatistics.getExecutionMaxTime(),
+                mean * count,
+                queryStatistics.getExecutionRowCount(),
+                queryStatistics.getCacheHitCount(),
+                queryStatistics.getCacheMissCount());
+    }
+
+    private static double ratio(long hit, long miss) {
+        long total = hit + miss;
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
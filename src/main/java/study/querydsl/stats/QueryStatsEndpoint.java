@@ -0,0 +1,22 @@
+package study.querydsl.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * `GET /actuator/querystats`: 쿼리 모양별 실행 통계 (전체 실행 시간 내림차순)
+ * 읽기 전용이다. 초기화는 `QueryStatsClearExtension`을 켰을 때만 열린다.
+ */
+@Component
+@Endpoint(id = "querystats")
+@RequiredArgsConstructor
+public class QueryStatsEndpoint {
+    private final QueryStatsCollector collector;
+
+    @ReadOperation
+    public QueryStatsReport report() {
+        return collector.report();
+    }
+}
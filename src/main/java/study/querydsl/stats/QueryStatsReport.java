@@ -0,0 +1,31 @@
+package study.querydsl.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import study.querydsl.cache.QueryCacheStats;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class QueryStatsReport {
+    private final boolean collecting;
+    private final long sinceEpochMillis;
+
+    private final long queryExecutionCount;
+    private final long queryExecutionMaxTimeMillis;
+    private final String slowestQuery;
+
+    private final long entityLoadCount;
+    private final long entityFetchCount;
+    private final long collectionLoadCount;
+    private final long collectionFetchCount;
+    private final long prepareStatementCount;
+    private final long flushCount;
+
+    private final double secondLevelCacheHitRatio;
+    private final double queryCacheHitRatio;
+    private final QueryCacheStats resultCache;
+
+    private final List<QueryShapeStats> queries;
+}
@@ -0,0 +1,33 @@
+package study.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * `in (...)` 절에 넣을 값을 나눈다.
+ *
+ * - 중복 값은 `in` 결과에 영향을 주지 않으므로 뺀다.
+ * - 드라이버/DB 의 바인딩 파라미터 개수 제한을 넘지 않도록 `maxSize` 단위로 자른다.
+ *
+ * 묶음 크기를 2의 거듭제곱으로 채우는 일은 하이버네이트(`hibernate.query.in_clause_parameter_padding`)가 한다.
+ * `maxSize`를 2의 거듭제곱으로 두면 채운 뒤에도 `maxSize`를 넘지 않는다.
+ */
+public class InListChunks {
+
+    private InListChunks() {
+    }
+
+    public static <T> List<List<T>> of(Collection<T> values, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize 는 1 이상이어야 합니다. maxSize=" + maxSize);
+        }
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxSize) {
+            chunks.add(new ArrayList<>(distinct.subList(from, Math.min(from + maxSize, distinct.size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.warmup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * 기록된 쿼리 모양을 기동 시 `createQuery()`로 미리 컴파일해서 하이버네이트 쿼리 플랜 캐시를 채운다.
+ * (JPQL 파싱, HQL AST 변환, SQL 생성까지 끝나고 실행은 하지 않는다)
+ *
+ * `ApplicationRunner`는 `ApplicationReadyEvent`보다 먼저 실행되므로,
+ * 웜업이 끝나기 전에는 readiness 가 `ACCEPTING_TRAFFIC`으로 바뀌지 않는다.
+ * 플랜 캐시 크기(`hibernate.query.plan_cache_max_size`)는 기록되는 쿼리 모양 수보다 커야 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryPlanWarmer implements ApplicationRunner {
+    private final QueryShapeRecorder recorder;
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> shapes = recorder.load();
+        if (shapes.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int compiled = 0;
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (String jpql : shapes) {
+                try {
+                    em.createQuery(jpql);
+                    compiled++;
+                } catch (RuntimeException e) {
+                    // 엔티티가 바뀌어서 더는 유효하지 않은 쿼리 모양은 건너뛴다.
+                    log.debug("쿼리 모양 웜업 실패: {}", jpql, e);
+                }
+            }
+        } finally {
+            em.close();
+        }
+        log.info("쿼리 플랜 웜업 완료: {}/{}건, {}ms", compiled, shapes.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
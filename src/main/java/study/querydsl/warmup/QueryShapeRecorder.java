@@ -0,0 +1,89 @@
+package study.querydsl.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 실행된 JPQL 문자열(쿼리 모양)을 중복 없이 파일에 기록한다.
+ * Querydsl 은 상수를 바인딩 파라미터로 바꾸므로, 같은 모양의 쿼리는 같은 JPQL 문자열이 된다.
+ * 하이버네이트 쿼리 플랜 캐시의 키가 JPQL 문자열 그대로이므로 줄바꿈까지 그대로 보존해서 저장한다.
+ */
+@Slf4j
+@Component
+public class QueryShapeRecorder {
+    private final Path shapesFile;
+    private final boolean enabled;
+    private final int maxShapes;
+    private final Set<String> shapes = ConcurrentHashMap.newKeySet();
+
+    public QueryShapeRecorder(@Value("${warmup.shapes-file:./query-shapes.txt}") String shapesFile,
+                              @Value("${warmup.record:true}") boolean enabled,
+                              @Value("${warmup.max-shapes:2000}") int maxShapes) {
+        this.shapesFile = Paths.get(shapesFile);
+        this.enabled = enabled;
+        this.maxShapes = maxShapes;
+        shapes.addAll(load());
+    }
+
+    public void record(String jpql) {
+        if (!enabled || shapes.size() >= maxShapes || !shapes.add(jpql)) {
+            return;
+        }
+        try {
+            Files.write(shapesFile, Collections.singletonList(escape(jpql)), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("쿼리 모양 기록 실패: {}", shapesFile, e);
+        }
+    }
+
+    public List<String> load() {
+        if (!Files.exists(shapesFile)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<String> loaded = new ArrayList<>();
+            for (String line : Files.readAllLines(shapesFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    loaded.add(unescape(line));
+                }
+            }
+            return loaded;
+        } catch (IOException e) {
+            log.warn("쿼리 모양 파일을 읽지 못했습니다: {}", shapesFile, e);
+            return Collections.emptyList();
+        }
+    }
+
+    // 한 줄에 쿼리 하나: `\` -> `\\`, 줄바꿈 -> `\n`
+    static String escape(String jpql) {
+        return jpql.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    static String unescape(String line) {
+        StringBuilder jpql = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                jpql.append(next == 'n' ? '\n' : next);
+            } else {
+                jpql.append(c);
+            }
+        }
+        return jpql.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.warmup;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * `createQuery(String ...)`로 넘어오는 JPQL 을 `QueryShapeRecorder`에 기록하고 그대로 위임하는 `EntityManager` 프록시.
+ * `JPAQueryFactory`가 이 프록시를 쓰도록 해서 Querydsl 로 만든 쿼리만 기록한다.
+ */
+public class QueryShapeRecordingEntityManager {
+
+    private QueryShapeRecordingEntityManager() {
+    }
+
+    public static EntityManager wrap(EntityManager em, QueryShapeRecorder recorder) {
+        return (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("createQuery") && args != null && args[0] instanceof String) {
+                        recorder.record((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(em, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
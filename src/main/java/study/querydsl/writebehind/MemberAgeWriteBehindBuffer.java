@@ -0,0 +1,214 @@
+package study.querydsl.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.QueryResultCache;
+import study.querydsl.domain.Member;
+import study.querydsl.support.InListChunks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * `Member.age` 변경을 회원별로 모아 두었다가 주기적으로 한 번에 반영한다.
+ * 같은 회원이 플러시 전에 여러 번 바뀌면 마지막 값만 `UPDATE` 된다.
+ *
+ * - `update()`는 저널에 기록한 뒤 반환하므로, 반환된 쓰기는 프로세스가 죽어도 재기동 시 복구된다.
+ * - 아직 반영되지 않은 회원 수가 `max-pending`에 도달하면 새 회원의 쓰기는 자리가 날 때까지 기다린다.
+ *   (이미 버퍼에 있는 회원의 쓰기는 덮어쓰기라서 기다리지 않는다)
+ *   자리는 배치가 커밋된 뒤에 돌려준다. 플러시가 실패해서 재시도를 기다리는 회원도 자리를 차지하므로,
+ *   DB 장애 중에도 버퍼와 저널은 `max-pending` 이상 늘어나지 않는다.
+ * - 반영은 JDBC 배치 `UPDATE`이므로 영속성 컨텍스트와 하이버네이트 이벤트를 거치지 않는다.
+ *   그래서 `@Version`을 직접 올리고, 조회 캐시는 직접 무효화한다.
+ *   같은 트랜잭션에서 반영 직전의 나이와 팀을 `for update`로 읽어서 이벤트에 담는다. (증분 집계가 차이만 반영한다)
+ * - 저널 디렉터리는 인스턴스마다 따로 둔다. 같은 디렉터리를 쓰려는 두 번째 인스턴스는 기동에 실패한다.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class MemberAgeWriteBehindBuffer {
+    private static final String UPDATE_AGE_SQL = "update member set age = ?, version = coalesce(version, 0) + 1 where member_id = ?";
+    private static final String SELECT_PREVIOUS_SQL = "select member_id, team_id, age from member where member_id in (%s) for update";
+    private static final int IN_LIST_MAX_SIZE = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final QueryResultCache queryResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WriteBehindJournal journal;
+    private final long offerTimeoutMillis;
+
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    // 쓰기(저널 기록 + 버퍼 반영)는 읽기 락, 플러시의 (저널 봉인 + 버퍼 비우기)는 쓰기 락으로 묶어서
+    // 봉인된 저널과 비운 버퍼의 내용이 항상 일치하게 한다.
+    private final ReadWriteLock sealLock = new ReentrantReadWriteLock();
+
+    // 플러시 스레드만 사용한다.
+    private final Map<Long, Integer> retryBatch = new HashMap<>();
+    // `retryBatch`가 쥐고 있는 자리 수 (저널 복구로 들어온 회원은 자리를 잡지 않는다)
+    private int retryPermits;
+    private final List<Path> unflushedJournals = new ArrayList<>();
+
+    public MemberAgeWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      QueryResultCache queryResultCache,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Value("${member.write-behind.journal-dir:./write-behind}") String journalDir,
+                                      @Value("${member.write-behind.fsync:true}") boolean fsync,
+                                      @Value("${member.write-behind.max-pending:10000}") int maxPending,
+                                      @Value("${member.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queryResultCache = queryResultCache;
+        this.eventPublisher = eventPublisher;
+        this.journal = new WriteBehindJournal(Paths.get(journalDir), fsync);
+        this.permits = new Semaphore(maxPending);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    /**
+     * 지난 실행에서 반영하지 못한 저널을 읽어서 첫 플러시 때 반영한다.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        journal.seal();
+        List<Path> sealedFiles = journal.sealedFiles();
+        journal.replay(sealedFiles, retryBatch::put);
+        unflushedJournals.addAll(sealedFiles);
+        if (!retryBatch.isEmpty()) {
+            log.info("write-behind 저널 복구: {}건", retryBatch.size());
+        }
+    }
+
+    public void update(Long memberId, int age) {
+        while (true) {
+            boolean permitHeld = false;
+            if (!pending.containsKey(memberId)) {
+                acquirePermit();
+                permitHeld = true;
+            }
+
+            sealLock.readLock().lock();
+            try {
+                // 자리를 확인한 뒤에 플러시가 돌아서 버퍼에서 빠졌다면 자리를 새로 잡아야 한다.
+                if (!permitHeld && !pending.containsKey(memberId)) {
+                    if (!permits.tryAcquire()) {
+                        continue;
+                    }
+                    permitHeld = true;
+                }
+                journal.append(memberId, age);
+                Integer previous = pending.put(memberId, age);
+                if (previous != null && permitHeld) {
+                    permits.release();
+                }
+                return;
+            } finally {
+                sealLock.readLock().unlock();
+            }
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${member.write-behind.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Integer> batch = new LinkedHashMap<>(retryBatch);
+        sealLock.writeLock().lock();
+        try {
+            if (pending.isEmpty() && batch.isEmpty()) {
+                return;
+            }
+            unflushedJournals.add(journal.seal());
+            for (Long memberId : new ArrayList<>(pending.keySet())) {
+                if (batch.put(memberId, pending.remove(memberId)) == null) {
+                    retryPermits++;
+                } else {
+                    // 재시도 중인 회원의 새 값으로 합쳐졌으므로 자리 하나는 바로 돌려준다.
+                    permits.release();
+                }
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((memberId, age) -> args.add(new Object[]{age, memberId}));
+        Map<Long, Integer> previousAges = new HashMap<>();
+        Map<Long, Long> teamIds = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                previousAges.clear();
+                teamIds.clear();
+                for (List<Long> chunk : InListChunks.of(batch.keySet(), IN_LIST_MAX_SIZE)) {
+                    String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                    jdbcTemplate.query(String.format(SELECT_PREVIOUS_SQL, placeholders), (RowCallbackHandler) rs -> {
+                        long memberId = rs.getLong(1);
+                        long teamId = rs.getLong(2);
+                        if (!rs.wasNull()) {
+                            teamIds.put(memberId, teamId);
+                        }
+                        previousAges.put(memberId, rs.getInt(3));
+                    }, chunk.toArray());
+                }
+                jdbcTemplate.batchUpdate(UPDATE_AGE_SQL, args);
+            });
+        } catch (RuntimeException e) {
+            // 봉인된 저널은 지우지 않고 남겨 두고, 다음 플러시에서 먼저 다시 시도한다.
+            // 그 사이에 같은 회원의 새 값이 들어오면 새 값이 이긴다.
+            log.error("write-behind 플러시 실패: {}건, 다음 주기에 재시도", batch.size(), e);
+            retryBatch.clear();
+            retryBatch.putAll(batch);
+            return;
+        }
+
+        retryBatch.clear();
+        permits.release(retryPermits);
+        retryPermits = 0;
+        unflushedJournals.forEach(journal::delete);
+        unflushedJournals.clear();
+        queryResultCache.invalidate(Member.class);
+        eventPublisher.publishEvent(new MemberAgesFlushedEvent(batch, previousAges, teamIds));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("write-behind 버퍼가 가득 찼습니다. pending=" + pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("write-behind 버퍼 대기 중 인터럽트되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.writebehind;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 쓰기 지연 버퍼가 JDBC 로 직접 반영한 나이 변경. (key: member_id, value: age)
+ * 하이버네이트를 거치지 않으므로 `EntityChangeEvent`는 발행되지 않는다.
+ * 증분 집계가 차이만 반영할 수 있도록 반영 직전의 나이와 팀도 함께 담는다. (DB 에 없던 회원은 빠진다)
+ */
+@Getter
+public class MemberAgesFlushedEvent {
+    private final Map<Long, Integer> ages;
+    private final Map<Long, Integer> previousAges;
+    // 팀이 없는 회원은 빠진다.
+    private final Map<Long, Long> teamIds;
+
+    public MemberAgesFlushedEvent(Map<Long, Integer> ages) {
+        this(ages, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    public MemberAgesFlushedEvent(Map<Long, Integer> ages, Map<Long, Integer> previousAges, Map<Long, Long> teamIds) {
+        this.ages = ages;
+        this.previousAges = previousAges;
+        this.teamIds = teamIds;
+    }
+}
@@ -0,0 +1,154 @@
+package study.querydsl.writebehind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 쓰기 지연 버퍼의 로컬 저널.
+ * 레코드는 (member_id: long, age: int) 12바이트 고정 길이로 현재 파일 끝에 덧붙인다.
+ * 플러시 직전에 현재 파일을 봉인(`journal-{seq}.sealed`)하고 새 파일로 넘어가며,
+ * 봉인된 파일은 그 내용이 DB 에 반영된 뒤에 지운다.
+ *
+ * 디렉터리는 한 인스턴스만 쓸 수 있다. (`.lock` 파일 잠금)
+ * 다른 인스턴스가 남의 활성 저널을 봉인해서 자기 DB 에 반영하는 일을 막는다. 프로세스가 죽으면 OS 가 잠금을 푼다.
+ */
+public class WriteBehindJournal implements AutoCloseable {
+    private static final int RECORD_SIZE = Long.BYTES + Integer.BYTES;
+    private static final String ACTIVE = "journal.active";
+    private static final String SEALED_SUFFIX = ".sealed";
+    private static final String LOCK = ".lock";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private FileChannel channel;
+    private long sequence;
+
+    public WriteBehindJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.lockChannel = FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.lock = tryLock(lockChannel, directory);
+            for (Path sealed : sealedFiles()) {
+                sequence = Math.max(sequence, sequenceOf(sealed));
+            }
+            this.channel = openActive();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * `fsync`가 켜져 있으면 디스크에 내려간 뒤에 반환하므로, 반환된 쓰기는 프로세스가 죽어도 남는다.
+     */
+    public synchronized void append(long memberId, int age) {
+        record.clear();
+        record.putLong(memberId).putInt(age).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 현재 파일을 봉인하고 새 파일을 연다.
+     */
+    public synchronized Path seal() {
+        try {
+            channel.close();
+            Path sealed = directory.resolve("journal-" + (++sequence) + SEALED_SUFFIX);
+            Files.move(directory.resolve(ACTIVE), sealed);
+            channel = openActive();
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(Path sealed) {
+        try {
+            Files.deleteIfExists(sealed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 봉인된 파일을 오래된 순서로 읽는다. 같은 회원은 나중 레코드가 이긴다.
+     * 기록 도중에 죽어서 잘린 마지막 레코드는 버린다. (반환되지 않은 쓰기다)
+     */
+    public void replay(List<Path> sealedFiles, BiConsumer<Long, Integer> consumer) {
+        for (Path sealed : sealedFiles) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(sealed));
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    consumer.accept(buffer.getLong(), buffer.getInt());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public synchronized List<Path> sealedFiles() throws IOException {
+        List<Path> sealed = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "journal-*" + SEALED_SUFFIX)) {
+            stream.forEach(sealed::add);
+        }
+        sealed.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return sealed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private static FileLock tryLock(FileChannel lockChannel, Path directory) throws IOException {
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 같은 JVM 의 다른 인스턴스가 잡고 있다.
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("다른 인스턴스가 쓰고 있는 write-behind 저널 디렉터리입니다. directory=" + directory);
+        }
+        return lock;
+    }
+
+    private FileChannel openActive() throws IOException {
+        return FileChannel.open(directory.resolve(ACTIVE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long sequenceOf(Path sealed) {
+        String name = sealed.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - SEALED_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.AgeStats;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemberColumnStoreTest {
+    MemberColumnStore store;
+
+    // `QuerydslBasicTest.makeFixture()`와 같은 데이터
+    @BeforeEach
+    public void makeFixture() {
+        store = new MemberColumnStore(2);
+        store.putTeam(1L, "teamA");
+        store.putTeam(2L, "teamB");
+
+        store.upsertMember(1L, "member1", 10, 1L);
+        store.upsertMember(2L, "member2", 20, 1L);
+        store.upsertMember(3L, "member3", 30, 2L);
+        store.upsertMember(4L, "member4", 40, 2L);
+    }
+
+    @Test
+    public void aggregation() {
+        AgeStats stats = store.ageStats();
+
+        assertThat(stats.getCount()).isEqualTo(4);
+        assertThat(stats.getSum()).isEqualTo(100);
+        assertThat(stats.getAvg()).isEqualTo(25);
+        assertThat(stats.getMax()).isEqualTo(40);
+        assertThat(stats.getMin()).isEqualTo(10);
+    }
+
+    @Test
+    public void group() {
+        Map<String, AgeStats> byTeam = store.ageStatsByTeam();
+
+        assertThat(byTeam.get("teamA").getAvg()).isEqualTo(15);
+        assertThat(byTeam.get("teamB").getAvg()).isEqualTo(35);
+    }
+
+    @Test
+    public void incrementalChanges() {
+        // 팀 이동, 삭제, 팀 이름 변경
+        store.upsertMember(1L, "member1", 10, 2L);
+        store.removeMember(4L);
+        store.putTeam(2L, "teamC");
+        store.upsertMember(5L, "member5", 50, 1L);
+
+        Map<String, AgeStats> byTeam = store.ageStatsByTeam();
+
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(byTeam).containsOnlyKeys("teamA", "teamC");
+        assertThat(byTeam.get("teamA").getCount()).isEqualTo(2);
+        assertThat(byTeam.get("teamA").getSum()).isEqualTo(70);
+        assertThat(byTeam.get("teamC").getCount()).isEqualTo(2);
+        assertThat(byTeam.get("teamC").getMax()).isEqualTo(30);
+    }
+
+    @Test
+    public void filterByAge() {
+        Map<String, AgeStats> byTeam = store.ageStatsByTeam(20, 30);
+
+        assertThat(byTeam.get("teamA").getCount()).isEqualTo(1);
+        assertThat(byTeam.get("teamB").getCount()).isEqualTo(1);
+        assertThat(store.countByUsername("member1")).isEqualTo(1);
+    }
+
+    @Test
+    public void outOfOrderInsertsKeepIdLookup() {
+        store.upsertMember(100L, "member100", 100, 1L);
+        store.upsertMember(50L, "member50", 50, 2L);
+        store.upsertMember(75L, "member75", 75, 2L);
+        store.updateAge(50L, 51);
+
+        assertThat(store.size()).isEqualTo(7);
+        assertThat(store.ageStatsByTeam().get("teamB").getSum()).isEqualTo(30 + 40 + 51 + 75);
+        assertThat(store.ageStatsByTeam().get("teamA").getMax()).isEqualTo(100);
+    }
+
+    @Test
+    public void compactDropsDeletedRowsAndUnusedUsernames() {
+        store.upsertMember(1L, "renamed1", 10, 1L);
+        store.removeMember(2L);
+        // 삭제한 회원의 나이 변경은 무시한다.
+        store.updateAge(2L, 99);
+        assertThat(store.usernameDictionarySize()).isEqualTo(5);
+
+        store.compact();
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.usernameDictionarySize()).isEqualTo(3);
+        assertThat(store.countByUsername("renamed1")).isEqualTo(1);
+        assertThat(store.countByUsername("member1")).isZero();
+        assertThat(store.ageStats().getSum()).isEqualTo(10 + 30 + 40);
+
+        // 지운 회원이 다시 들어와도 id 로 찾을 수 있다.
+        store.upsertMember(2L, "member2", 20, 1L);
+        assertThat(store.ageStatsByTeam().get("teamA").getCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.approx;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.writebehind.MemberAgesFlushedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+// 변경 이벤트는 커밋 뒤에 오므로 테스트 트랜잭션 없이 실행하고, 데이터는 직접 지운다.
+@SpringBootTest
+@ActiveProfiles("test")
+class ApproximateAggregationServiceTest {
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired ApproximateAggregationService approximateAggregationService;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member2;
+
+    @BeforeEach
+    public void makeFixture() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teamA = new Team("approxTeamA");
+            teamB = new Team("approxTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            member1 = new Member("approxMember1", 10, teamA);
+            member2 = new Member("approxMember2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            // 회원명이 없는 회원도 다시 만들 때 건너뛰어야 한다.
+            em.persist(new Member(null, 30, teamA));
+        });
+        approximateAggregationService.rebuild();
+    }
+
+    @AfterEach
+    public void removeFixture() {
+        List<Long> teamIds = List.of(teamA.getId(), teamB.getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.in(teamIds)).execute();
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+        });
+    }
+
+    @Test
+    public void rebuildSkipsNullUsernames() {
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamA").getValue()).isEqualTo(2);
+        assertThat(approximateAggregationService.agePercentile("approxTeamA", 1.0).getValue()).isEqualTo(30);
+        assertThat(approximateAggregationService.total().memberCount()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void ageChangesAreAppliedWithoutRebuild() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member1.getId()).setAge(50));
+        approximateAggregationService.onMemberAgesFlushed(new MemberAgesFlushedEvent(
+                Map.of(member2.getId(), 60), Map.of(member2.getId(), 20), Map.of(member2.getId(), teamA.getId())));
+
+        ApproximateResult<Double> max = approximateAggregationService.agePercentile("approxTeamA", 1.0);
+        ApproximateResult<Double> min = approximateAggregationService.agePercentile("approxTeamA", 0.0);
+        assertThat(max.getValue()).isEqualTo(60);
+        assertThat(min.getValue()).isEqualTo(30);
+        assertThat(max.isStale()).isFalse();
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamA").isStale()).isFalse();
+    }
+
+    @Test
+    public void movedMemberIsStaleForDistinctCountOnly() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member1.getId())
+                .changeTeam(em.getReference(Team.class, teamB.getId())));
+
+        ApproximateResult<Long> teamADistinct = approximateAggregationService.countDistinctUsernames("approxTeamA");
+        // HyperLogLog 에서는 회원명을 뺄 수 없으므로 팀 A 는 여전히 2로 추정하고, stale 로 표시한다.
+        assertThat(teamADistinct.getValue()).isEqualTo(2);
+        assertThat(teamADistinct.isStale()).isTrue();
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamB").getValue()).isEqualTo(1);
+        // 나이 분포는 바로 반영된다.
+        assertThat(approximateAggregationService.agePercentile("approxTeamA", 0.0).getValue()).isEqualTo(20);
+        assertThat(approximateAggregationService.agePercentile("approxTeamB", 0.0).isStale()).isFalse();
+
+        // 빠진 회원명이 많으면 주기 작업이 다시 만든다.
+        approximateAggregationService.rebuildIfStale();
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamA").getValue()).isEqualTo(1);
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamA").isStale()).isFalse();
+    }
+
+    @Test
+    public void teamRenameKeepsSketch() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamA.getId()).setName("approxTeamC"));
+
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamC").getValue()).isEqualTo(2);
+        assertThat(approximateAggregationService.countDistinctUsernames("approxTeamA").getValue()).isZero();
+    }
+}
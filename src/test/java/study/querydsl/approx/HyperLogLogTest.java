@@ -0,0 +1,81 @@
+package study.querydsl.approx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    public void estimateWithinTwoPercent() {
+        HyperLogLog hll = new HyperLogLog(14);
+        for (int i = 0; i < 1_000_000; i++) {
+            // 같은 값을 여러 번 넣어도 한 번으로 센다.
+            hll.add("member" + (i % 200_000));
+        }
+
+        assertThat(hll.estimate()).isBetween(196_000L, 204_000L);
+    }
+
+    @Test
+    public void smallCardinality() {
+        HyperLogLog hll = new HyperLogLog(14);
+        for (int i = 1; i <= 4; i++) {
+            hll.add("member" + i);
+        }
+
+        assertThat(hll.estimate()).isEqualTo(4);
+    }
+
+    @Test
+    public void nullIsNotCounted() {
+        HyperLogLog hll = new HyperLogLog(14);
+        hll.add(null);
+        hll.add("member1");
+
+        assertThat(hll.estimate()).isEqualTo(1);
+    }
+
+    @Test
+    public void merge() {
+        HyperLogLog teamA = new HyperLogLog(14);
+        HyperLogLog teamB = new HyperLogLog(14);
+        for (int i = 0; i < 60_000; i++) {
+            teamA.add("member" + i);
+            teamB.add("member" + (i + 30_000));
+        }
+
+        // 30,000 명이 겹치므로 합집합은 90,000 명
+        assertThat(teamA.merge(teamB).estimate()).isBetween(88_200L, 91_800L);
+    }
+
+    @Test
+    public void agePercentile() {
+        TeamSketch sketch = new TeamSketch(14);
+        for (int age = 1; age <= 100; age++) {
+            sketch.add("member" + age, age);
+        }
+
+        assertThat(sketch.memberCount()).isEqualTo(100);
+        assertThat(sketch.agePercentile(0.5)).isCloseTo(50.5, within(1.0));
+        assertThat(sketch.agePercentile(0.99)).isCloseTo(99.0, within(1.5));
+    }
+
+    @Test
+    public void removeFromSketch() {
+        TeamSketch sketch = new TeamSketch(14);
+        sketch.add("member1", 10);
+        sketch.add("member2", 20);
+        sketch.add("member3", 30);
+
+        sketch.remove("member3", 30);
+        sketch.changeAge(10, 40);
+
+        assertThat(sketch.memberCount()).isEqualTo(2);
+        assertThat(sketch.agePercentile(0.0)).isEqualTo(20);
+        assertThat(sketch.agePercentile(1.0)).isEqualTo(40);
+        // 회원명은 빼지 못하고 빠진 수만 센다.
+        assertThat(sketch.countDistinctUsernames()).isEqualTo(3);
+        assertThat(sketch.removedUsernames()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+// 무효화는 커밋 이후에 일어나므로 테스트 트랜잭션 대신 `TransactionTemplate`으로 커밋한다.
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryResultCacheTest {
+    @Autowired QueryResultCache queryResultCache;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    String teamName;
+    Long teamId;
+
+    @BeforeEach
+    public void makeFixture() {
+        teamName = "cacheTeam-" + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team cacheTeam = new Team(teamName);
+            em.persist(cacheTeam);
+            teamId = cacheTeam.getId();
+            em.persist(new Member("member1", 10, cacheTeam));
+            em.persist(new Member("member2", 20, cacheTeam));
+        });
+    }
+
+    // 커밋한 데이터는 롤백되지 않으므로 직접 지운다. (전체 건수를 세는 테스트가 있다)
+    @AfterEach
+    public void removeFixture() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamId)).execute();
+            queryFactory.delete(team).where(team.id.eq(teamId)).execute();
+        });
+    }
+
+    @Test
+    public void cacheHitAndInvalidateOnCommit() {
+        assertThat(fetchMembersOfTeam()).hasSize(2);
+        QueryCacheStats before = queryResultCache.stats();
+
+        assertThat(fetchMembersOfTeam()).hasSize(2);
+        assertThat(queryResultCache.stats().getHitCount()).isEqualTo(before.getHitCount() + 1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team cacheTeam = queryFactory.selectFrom(team).where(team.name.eq(teamName)).fetchOne();
+            em.persist(new Member("member3", 30, cacheTeam));
+        });
+
+        // `Member` 커밋으로 무효화되었으므로 다시 조회해야 한다.
+        assertThat(fetchMembersOfTeam()).hasSize(3);
+        assertThat(queryResultCache.stats().getMissCount()).isEqualTo(before.getMissCount() + 1);
+        assertThat(queryResultCache.stats().getEstimatedBytes()).isPositive();
+    }
+
+    @Test
+    public void differentBindValuesAreDifferentKeys() {
+        QueryCacheKey age10 = QueryCacheKey.of(queryFactory.selectFrom(member).where(member.age.eq(10)));
+        QueryCacheKey age20 = QueryCacheKey.of(queryFactory.selectFrom(member).where(member.age.eq(20)));
+        QueryCacheKey age10Again = QueryCacheKey.of(queryFactory.selectFrom(member).where(member.age.eq(10)));
+
+        assertThat(age10.getJpql()).isEqualTo(age20.getJpql());
+        assertThat(age10).isNotEqualTo(age20);
+        assertThat(age10).isEqualTo(age10Again);
+    }
+
+    @Test
+    public void entityQueriesAreRejected() {
+        assertThatThrownBy(() -> queryResultCache.cached(Duration.ofMinutes(1))
+                .fetch(queryFactory.selectFrom(member).where(member.age.eq(10))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queryResultCache.cached(Duration.ofMinutes(1))
+                .fetch(queryFactory.select(member, team.name).from(member).join(member.team, team)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<MemberDto> fetchMembersOfTeam() {
+        return queryResultCache.cached(Duration.ofMinutes(1))
+                .fetch(queryFactory
+                        .select(new QMemberDto(member.username, member.age))
+                        .from(member)
+                        .join(member.team, team)
+                        .where(team.name.eq(teamName)));
+    }
+}
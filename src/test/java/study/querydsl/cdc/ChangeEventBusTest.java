@@ -0,0 +1,117 @@
+package study.querydsl.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.domain.Team;
+import study.querydsl.entity.Hello;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.EntityChangeEvent;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ChangeEventBusTest {
+    private static final long SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    @TempDir Path directory;
+
+    @Test
+    public void slowSubscriberCatchesUpFromJournal() throws Exception {
+        // 링 버퍼가 2칸뿐이라 느린 구독자는 넘치게 된다.
+        ChangeEventBus bus = new ChangeEventBus(directory.resolve("changes.log").toString(), SEGMENT_BYTES, 2);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch all = new CountDownLatch(1);
+
+        bus.subscribe("slow", 10, batch -> {
+            batch.forEach(record -> received.add(record.getSequence()));
+            if (received.size() >= 100) {
+                all.countDown();
+            }
+            sleep(5);
+        });
+        for (long id = 1; id <= 100; id++) {
+            bus.publish("Member", id, ChangeType.UPDATE);
+        }
+
+        assertThat(all.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Long> expected = new ArrayList<>();
+        for (long sequence = 1; sequence <= 100; sequence++) {
+            expected.add(sequence);
+        }
+        assertThat(received).containsExactlyElementsOf(expected);
+        bus.close();
+    }
+
+    @Test
+    public void failedBatchIsRedelivered() throws Exception {
+        ChangeEventBus bus = new ChangeEventBus(directory.resolve("changes.log").toString(), SEGMENT_BYTES, 16);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failed = new AtomicBoolean();
+        CountDownLatch all = new CountDownLatch(1);
+
+        bus.subscribe("flaky", 10, batch -> {
+            // 첫 묶음은 한 번 실패시킨다.
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("handler failure");
+            }
+            batch.forEach(record -> received.add(record.getSequence()));
+            if (received.size() >= 5) {
+                all.countDown();
+            }
+        });
+        for (long id = 1; id <= 5; id++) {
+            bus.publish("Member", id, ChangeType.INSERT);
+        }
+
+        assertThat(all.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(1L, 2L, 3L, 4L, 5L);
+        bus.close();
+    }
+
+    @Test
+    public void onlyMemberAndTeamChangesArePublished() throws Exception {
+        ChangeEventBus bus = new ChangeEventBus(directory.resolve("changes.log").toString(), SEGMENT_BYTES, 16);
+
+        bus.onEntityChange(new EntityChangeEvent(Hello.class, 1L, ChangeType.INSERT, new Hello()));
+        bus.onEntityChange(new EntityChangeEvent(Team.class, 2L, ChangeType.INSERT, null));
+
+        List<ChangeRecord> replayed = new ArrayList<>();
+        bus.replay(1, replayed::add);
+        assertThat(replayed).extracting("entityName").containsExactly("Team");
+        bus.close();
+    }
+
+    @Test
+    public void replayAfterRestart() throws Exception {
+        String journalFile = directory.resolve("changes.log").toString();
+        ChangeEventBus bus = new ChangeEventBus(journalFile, SEGMENT_BYTES, 16);
+        bus.publish("Team", 1L, ChangeType.INSERT);
+        bus.publish("Member", 2L, ChangeType.INSERT);
+        bus.publish("Member", 2L, ChangeType.DELETE);
+        bus.close();
+
+        ChangeEventBus restarted = new ChangeEventBus(journalFile, SEGMENT_BYTES, 16);
+        List<ChangeRecord> replayed = new ArrayList<>();
+        restarted.replay(2, replayed::add);
+
+        assertThat(replayed).extracting("changeType").containsExactly(ChangeType.INSERT, ChangeType.DELETE);
+        // 시퀀스는 재기동 후에도 이어진다.
+        assertThat(restarted.publish("Member", 3L, ChangeType.INSERT).getSequence()).isEqualTo(4);
+        restarted.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.event.ChangeType;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ChangeEventJournalTest {
+    @TempDir Path directory;
+
+    @Test
+    public void rotatesSegmentsAndReplaysFromAnySequence() throws Exception {
+        Path file = directory.resolve("changes.log");
+        // 세그먼트 하나에 몇 줄만 들어가도록 작게 잡는다.
+        try (ChangeEventJournal journal = new ChangeEventJournal(file, 256)) {
+            for (long sequence = 1; sequence <= 1000; sequence++) {
+                journal.append(record(sequence));
+            }
+
+            assertThat(directory.toFile().list((dir, name) -> name.matches("changes\\.log\\.\\d+"))).hasSizeGreaterThan(10);
+            for (long from : new long[]{1, 2, 129, 500, 999, 1000, 1001}) {
+                assertThat(sequences(journal, from)).containsExactlyElementsOf(range(from, 1000));
+            }
+        }
+
+        // 재기동하면 마지막 세그먼트만 읽고 이어서 쓴다.
+        try (ChangeEventJournal restarted = new ChangeEventJournal(file, 256)) {
+            assertThat(restarted.lastSequence()).isEqualTo(1000);
+            restarted.append(record(1001));
+            assertThat(sequences(restarted, 995)).containsExactlyElementsOf(range(995, 1001));
+        }
+    }
+
+    @Test
+    public void truncatedLastLineIsDroppedOnRestart() throws Exception {
+        Path file = directory.resolve("changes.log");
+        try (ChangeEventJournal journal = new ChangeEventJournal(file, 1024 * 1024)) {
+            journal.append(record(1));
+            journal.append(record(2));
+        }
+        // 기록 도중에 죽었다.
+        Files.write(directory.resolve("changes.log.1"), "3\tMem".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (ChangeEventJournal restarted = new ChangeEventJournal(file, 1024 * 1024)) {
+            assertThat(restarted.lastSequence()).isEqualTo(2);
+            restarted.append(record(3));
+            assertThat(sequences(restarted, 1)).containsExactly(1L, 2L, 3L);
+        }
+    }
+
+    @Test
+    public void singleFileJournalIsMigrated() throws Exception {
+        Path file = directory.resolve("changes.log");
+        Files.write(file, (record(7).toLine() + "\n" + record(8).toLine() + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (ChangeEventJournal journal = new ChangeEventJournal(file, 1024 * 1024)) {
+            assertThat(journal.lastSequence()).isEqualTo(8);
+            assertThat(sequences(journal, 1)).containsExactly(7L, 8L);
+        }
+    }
+
+    @Test
+    public void journalIsUsedByOneInstanceOnly() throws Exception {
+        Path file = directory.resolve("changes.log");
+        try (ChangeEventJournal journal = new ChangeEventJournal(file, 1024 * 1024)) {
+            assertThatThrownBy(() -> new ChangeEventJournal(file, 1024 * 1024))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        // 닫으면 다시 열 수 있다.
+        new ChangeEventJournal(file, 1024 * 1024).close();
+    }
+
+    private static ChangeRecord record(long sequence) {
+        return new ChangeRecord(sequence, "Member", sequence, ChangeType.UPDATE, 0);
+    }
+
+    private static List<Long> sequences(ChangeEventJournal journal, long from) {
+        List<Long> sequences = new ArrayList<>();
+        journal.replay(from, record -> sequences.add(record.getSequence()));
+        return sequences;
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> range = new ArrayList<>();
+        for (long sequence = from; sequence <= to; sequence++) {
+            range.add(sequence);
+        }
+        return range;
+    }
+}
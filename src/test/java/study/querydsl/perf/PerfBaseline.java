@@ -0,0 +1,118 @@
+package study.querydsl.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * `perf/baseline.properties`의 기준값과 측정 결과를 비교한다.
+ * - SQL 수(`<시나리오>.sql`)는 데이터 양과 관계없으므로 시나리오마다 하나이고, 하나라도 늘면 실패한다. (N+1, 빠진 페치 조인 등)
+ *   기준값이 없는 시나리오도 실패로 본다.
+ * - p95(`<시나리오>.<회원 수>.p95-ms`)는 장비와 데이터 양마다 다르므로 기준 장비에서 갱신 모드로 기록한다.
+ *   `기준값 * (1 + perf.threshold) + perf.slack-ms` 보다 느리면 실패하고, 아직 기록되지 않았으면 경고만 남긴다.
+ * `-Dperf.updateBaseline=true`면 비교하지 않고 이번 결과로 기준값 파일을 갱신한다.
+ */
+class PerfBaseline {
+    private static final String RESOURCE = "/perf/baseline.properties";
+    private static final Path SOURCE_FILE = Paths.get("src/test/resources/perf/baseline.properties");
+
+    private final int members;
+    private final Properties baseline;
+    private final double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.2"));
+    private final double slackMillis = Double.parseDouble(System.getProperty("perf.slack-ms", "1"));
+    private final boolean update = Boolean.getBoolean("perf.updateBaseline");
+    private final Map<String, String> results = new TreeMap<>();
+
+    private PerfBaseline(int members, Properties baseline) {
+        this.members = members;
+        this.baseline = baseline;
+    }
+
+    static PerfBaseline load(int members) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = PerfBaseline.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+        return new PerfBaseline(members, baseline);
+    }
+
+    /**
+     * @return 회귀 목록 (없으면 빈 리스트)
+     */
+    synchronized List<String> check(PerfResult result) {
+        String prefix = result.getScenario() + "." + members;
+        results.put(prefix + ".p50-ms", format(result.getP50Millis()));
+        results.put(prefix + ".p95-ms", format(result.getP95Millis()));
+        results.put(prefix + ".p99-ms", format(result.getP99Millis()));
+        results.put(result.getScenario() + ".sql", String.valueOf(result.getSqlCount()));
+
+        List<String> regressions = new ArrayList<>();
+        if (update) {
+            return regressions;
+        }
+
+        String sqlKey = result.getScenario() + ".sql";
+        String sqlBaseline = baseline.getProperty(sqlKey);
+        if (sqlBaseline == null) {
+            regressions.add(String.format("%s: 기준값이 없습니다. -Pperf.updateBaseline=true 로 기록해 주세요.", sqlKey));
+        } else if (result.getSqlCount() > Long.parseLong(sqlBaseline)) {
+            regressions.add(String.format("%s: SQL %d회 (기준 %s회)", prefix, result.getSqlCount(), sqlBaseline));
+        }
+        String p95Baseline = baseline.getProperty(prefix + ".p95-ms");
+        if (p95Baseline == null) {
+            System.out.printf("WARN %s.p95-ms: 기준값이 없어 지연 시간은 비교하지 않습니다. "
+                    + "기준 장비에서 -Pperf.members=%d -Pperf.updateBaseline=true 로 기록해 주세요.%n", prefix, members);
+        } else {
+            double limit = Double.parseDouble(p95Baseline) * (1 + threshold) + slackMillis;
+            if (result.getP95Millis() > limit) {
+                regressions.add(String.format("%s: p95 %.2fms (기준 %sms, 허용 %.2fms)",
+                        prefix, result.getP95Millis(), p95Baseline, limit));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * 결과는 항상 `build/perf/results-<회원 수>.properties`에 남긴다.
+     * 갱신 모드면 기준값 파일(소스 트리)의 이번 회원 수 항목을 덮어쓴다.
+     */
+    synchronized void write() throws IOException {
+        Path resultsFile = Paths.get(System.getProperty("perf.results-dir", "build/perf"), "results-" + members + ".properties");
+        Files.createDirectories(resultsFile.getParent());
+        write(resultsFile, "# 성능 회귀 테스트 결과 (회원 " + members + "명)", results);
+
+        if (update) {
+            Map<String, String> merged = new TreeMap<>();
+            baseline.stringPropertyNames().forEach(key -> merged.put(key, baseline.getProperty(key)));
+            results.forEach((key, value) -> {
+                if (key.endsWith(".p95-ms") || key.endsWith(".sql")) {
+                    merged.put(key, value);
+                }
+            });
+            write(SOURCE_FILE, "# 성능 회귀 테스트(`./gradlew perfTest`) 기준값\n"
+                    + "# 키: <시나리오>.sql / <시나리오>.<회원 수>.p95-ms\n"
+                    + "# 갱신: ./gradlew perfTest -Pperf.members=<회원 수> -Pperf.updateBaseline=true", merged);
+        }
+    }
+
+    private static void write(Path file, String header, Map<String, String> entries) throws IOException {
+        StringBuilder content = new StringBuilder(header).append('\n');
+        entries.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.2f", millis);
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.perf;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 성능 테스트용 데이터를 JDBC 배치로 넣는다. (엔티티를 하나씩 `persist`하면 10^6 건 이상은 너무 느리다.)
+ * 같은 `seed`면 항상 같은 데이터가 만들어진다.
+ * 팀 크기는 Zipf 분포를 따른다. `team_id`가 1인 팀이 가장 크고, 순위(`team_id`)가 내려갈수록 `1/rank^skew` 비율로 작아진다.
+ */
+class PerfDataSeeder {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PerfDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 팀 `team_id` = 1..teamCount, 회원 `member_id` = teamCount + 1..teamCount + memberCount
+     *
+     * @return 팀별 회원 수 (`[0]`이 `team_id` 1)
+     */
+    long[] seed(int memberCount, int teamCount, double skew, long seed) {
+        List<Object[]> teams = new ArrayList<>(teamCount);
+        for (int i = 1; i <= teamCount; i++) {
+            teams.add(new Object[]{(long) i, teamName(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name, version) values (?, ?, 0)", teams);
+
+        double[] cumulative = zipfCumulative(teamCount, skew);
+        Random random = new Random(seed);
+        long[] teamSizes = new long[teamCount];
+        for (int from = 0; from < memberCount; from += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, memberCount - from);
+            List<Object[]> members = new ArrayList<>(size);
+            for (int i = from; i < from + size; i++) {
+                int teamIndex = pick(cumulative, random.nextDouble());
+                teamSizes[teamIndex]++;
+                members.add(new Object[]{teamCount + i + 1L, "member" + i, 10 + random.nextInt(60), teamIndex + 1L});
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into member (member_id, username, age, team_id, version) values (?, ?, ?, ?, 0)", members);
+        }
+
+        // 테스트 중에 `persist`해도 id 가 겹치지 않게 시퀀스를 뒤로 민다.
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (teamCount + memberCount + 1L));
+        // 옵티마이저 통계 갱신
+        jdbcTemplate.execute("analyze");
+        return teamSizes;
+    }
+
+    static String teamName(long teamId) {
+        return "team" + teamId;
+    }
+
+    private static double[] zipfCumulative(int n, double skew) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, skew);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        cumulative[n - 1] = 1.0;
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.perf;
+
+import java.util.Arrays;
+
+/**
+ * 시나리오 하나의 측정 결과. 지연 시간은 반복마다 잰 값의 백분위수(nearest-rank), SQL 수는 1회 실행 기준이다.
+ */
+class PerfResult {
+    private final String scenario;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final long sqlCount;
+
+    PerfResult(String scenario, long[] elapsedNanos, long sqlCount) {
+        long[] sorted = elapsedNanos.clone();
+        Arrays.sort(sorted);
+        this.scenario = scenario;
+        this.p50Millis = percentileMillis(sorted, 50);
+        this.p95Millis = percentileMillis(sorted, 95);
+        this.p99Millis = percentileMillis(sorted, 99);
+        this.sqlCount = sqlCount;
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    String getScenario() {
+        return scenario;
+    }
+
+    double getP50Millis() {
+        return p50Millis;
+    }
+
+    double getP95Millis() {
+        return p95Millis;
+    }
+
+    double getP99Millis() {
+        return p99Millis;
+    }
+
+    long getSqlCount() {
+        return sqlCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: p50=%.2fms p95=%.2fms p99=%.2fms sql=%d",
+                scenario, p50Millis, p95Millis, p99Millis, sqlCount);
+    }
+}
@@ -0,0 +1,195 @@
+package study.querydsl.perf;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.MemberTeamField;
+import study.querydsl.repository.MemberProjectionRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.TeamMemberRepository;
+import study.querydsl.repository.TeamQueryRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 주요 쿼리(검색, 페이징, 조인, 서브쿼리, group by, 프로젝션)의 지연 시간 백분위수와 SQL 수를 기준값과 비교한다.
+ * `./gradlew perfTest`로만 실행된다. (`test`에서는 `perf` 태그를 제외한다.)
+ *
+ * 데이터 양은 `-Pperf.members`(기본 10^4)로 정한다. 10^6 이상은 `-Pperf.heap`으로 힙을 늘린다.
+ * 매번 같은 데이터를 넣도록 시드를 고정하고, 외부 DB 없이 인메모리 H2 를 쓴다.
+ */
+@Tag("perf")
+// 고정 id 로 데이터를 넣으므로 다른 테스트와 DB 와 저널 파일을 나눠 쓰지 않는다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:perf;MODE=REGULAR;DB_CLOSE_DELAY=-1",
+        "member.write-behind.journal-dir=build/perf-state/write-behind",
+        "cdc.journal-file=build/perf-state/cdc/changes.log",
+        "warmup.shapes-file=build/perf-state/query-shapes.txt"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPerformanceRegressionTest {
+    private static final int MEMBERS = Integer.getInteger("perf.members", 10_000);
+    private static final int WARMUP = Integer.getInteger("perf.warmup", 20);
+    private static final int ITERATIONS = Integer.getInteger("perf.iterations", 100);
+    private static final double SKEW = 1.1;
+    private static final long SEED = 42L;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberQueryRepository memberQueryRepository;
+    @Autowired TeamMemberRepository teamMemberRepository;
+    @Autowired TeamQueryRepository teamQueryRepository;
+    @Autowired MemberProjectionRepository memberProjectionRepository;
+
+    PerfBaseline baseline;
+    Statistics statistics;
+    TransactionTemplate readOnly;
+
+    // 가장 큰 팀(Zipf 1위)과 보통 크기 팀(상위 10% 지점)
+    long largestTeamId = 1;
+    long typicalTeamId;
+
+    @BeforeAll
+    void seed() throws IOException {
+        int teamCount = Math.max(10, MEMBERS / 100);
+        long start = System.nanoTime();
+        long[] teamSizes = new PerfDataSeeder(jdbcTemplate).seed(MEMBERS, teamCount, SKEW, SEED);
+        typicalTeamId = teamCount / 10 + 1;
+        System.out.printf("seeded %d members, %d teams in %dms (largest team %d, typical team %d)%n",
+                MEMBERS, teamCount, (System.nanoTime() - start) / 1_000_000,
+                teamSizes[(int) largestTeamId - 1], teamSizes[(int) typicalTeamId - 1]);
+
+        baseline = PerfBaseline.load(MEMBERS);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterAll
+    void writeResults() throws IOException {
+        baseline.write();
+    }
+
+    @Test
+    public void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(PerfDataSeeder.teamName(typicalTeamId));
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        measure("search", () -> memberQueryRepository.search(condition));
+    }
+
+    @Test
+    public void keysetPaging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 100건씩 5페이지
+        measure("keyset-paging", () -> {
+            MemberSlice slice = memberQueryRepository.searchAfter(condition, null, 100);
+            for (int page = 1; page < 5; page++) {
+                slice = memberQueryRepository.searchAfter(condition, slice.getLastMemberId(), 100);
+            }
+            return slice;
+        });
+    }
+
+    @Test
+    public void offsetPaging() {
+        measure("offset-paging", () -> teamMemberRepository.findMembers(largestTeamId, PageRequest.of(5, 20)));
+    }
+
+    @Test
+    public void join() {
+        // 첫 페이지에 가장 큰 팀(1위)이 들어 있다.
+        measure("join", () -> teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 20), 10));
+    }
+
+    @Test
+    public void subquery() {
+        // 팀 평균보다 나이가 많은 회원
+        QMember memberSub = new QMember("memberSub");
+        measure("subquery", () -> queryFactory
+                .selectFrom(member)
+                .where(
+                        member.team.id.eq(typicalTeamId),
+                        member.age.gt(
+                                JPAExpressions
+                                        .select(memberSub.age.avg())
+                                        .from(memberSub)
+                                        .where(memberSub.team.eq(member.team))
+                        )
+                )
+                .fetch());
+    }
+
+    @Test
+    public void groupBy() {
+        measure("group-by", () -> queryFactory
+                .select(team.name, member.count(), member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .having(member.count().goe(10L))
+                .fetch());
+    }
+
+    @Test
+    public void projection() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(PerfDataSeeder.teamName(typicalTeamId));
+
+        measure("projection", () -> memberProjectionRepository.findMemberTeams(condition));
+        measure("pruned-projection", () -> memberProjectionRepository
+                .findMemberTeams(condition, EnumSet.of(MemberTeamField.USERNAME, MemberTeamField.AGE)));
+    }
+
+    private void measure(String scenario, Supplier<?> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            readOnly.execute(status -> query.get());
+        }
+
+        long prepared = statistics.getPrepareStatementCount();
+        readOnly.execute(status -> query.get());
+        long sqlCount = statistics.getPrepareStatementCount() - prepared;
+
+        long[] elapsedNanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            readOnly.execute(status -> query.get());
+            elapsedNanos[i] = System.nanoTime() - start;
+        }
+
+        PerfResult result = new PerfResult(scenario, elapsedNanos, sqlCount);
+        System.out.println(result);
+        List<String> regressions = baseline.check(result);
+        assertThat(regressions).as("성능 회귀").isEmpty();
+    }
+}
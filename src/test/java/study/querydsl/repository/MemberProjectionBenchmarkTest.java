@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 엔티티 조회 후 DTO 변환 vs DTO 직접 조회의 힙 할당량과 지연 시간 비교.
+ * 할당량은 현재 스레드가 할당한 바이트 수(`getThreadAllocatedBytes`)로 잰다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class MemberProjectionBenchmarkTest {
+    private static final int MEMBER_COUNT = 5_000;
+    private static final int ITERATIONS = 20;
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberProjectionRepository memberProjectionRepository;
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    public void makeFixture() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+
+        condition.setAgeGoe(0);
+    }
+
+    @Test
+    public void entityVersusProjection() {
+        Supplier<List<MemberTeamDto>> entityListing = () -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.age.goe(0))
+                .orderBy(member.id.asc())
+                .fetch()
+                .stream()
+                .map(m -> new MemberTeamDto(m.getUsername(), m.getAge(), m.getTeam().getName()))
+                .collect(Collectors.toList());
+        Supplier<List<MemberTeamDto>> projection = () -> memberProjectionRepository.findMemberTeams(condition);
+        Supplier<List<MemberTeamDto>> prunedProjection = () -> memberProjectionRepository
+                .findMemberTeams(condition, EnumSet.of(MemberTeamField.USERNAME, MemberTeamField.AGE));
+
+        List<MemberTeamDto> expected = entityListing.get();
+        em.clear();
+        assertThat(projection.get()).containsAll(expected);
+        assertThat(prunedProjection.get()).allMatch(dto -> dto.getTeamName() == null);
+
+        measure("entity", entityListing);
+        measure("projection", projection);
+        measure("pruned projection", prunedProjection);
+    }
+
+    private void measure(String name, Supplier<List<MemberTeamDto>> listing) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // 워밍업
+        listing.get();
+        em.clear();
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertThat(listing.get()).hasSizeGreaterThanOrEqualTo(MEMBER_COUNT);
+            // 엔티티 조회는 영속성 컨텍스트에 계속 쌓이므로 반복마다 비워서 같은 조건으로 잰다.
+            em.clear();
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1_000 / ITERATIONS;
+        long allocatedKb = (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / 1024 / ITERATIONS;
+
+        System.out.printf("%s: %dus/op, %dKB/op%n", name, elapsedMicros, allocatedKb);
+    }
+}
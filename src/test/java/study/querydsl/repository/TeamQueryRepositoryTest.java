@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.TeamWithMembersDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TeamQueryRepositoryTest {
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired TeamQueryRepository teamQueryRepository;
+
+    Logger hibernateLogger = (Logger) LoggerFactory.getLogger("org.hibernate");
+    ListAppender<ILoggingEvent> hibernateLogs = new ListAppender<>();
+    List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    public void makeFixture() {
+        hibernateLogs.start();
+        hibernateLogger.addAppender(hibernateLogs);
+
+        // 다른 테스트가 커밋한 팀이 있을 수 있으므로 이 테스트의 팀이 뒤쪽 페이지에 오도록 id 로 찾는다.
+        for (int t = 0; t < 5; t++) {
+            Team newTeam = new Team("pagingTeam" + t);
+            em.persist(newTeam);
+            teams.add(newTeam);
+            for (int m = 0; m < 10; m++) {
+                em.persist(new Member("member" + t + "-" + m, m, newTeam));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    public void detachAppender() {
+        hibernateLogger.detachAppender(hibernateLogs);
+    }
+
+    @Test
+    public void twoPhasePagingDoesNotPaginateInMemory() {
+        long teamsBefore = queryFactory.selectFrom(team).where(team.id.lt(teams.get(0).getId())).fetchCount();
+
+        Page<TeamWithMembersDto> page = teamQueryRepository.findTeamsWithMembers(PageRequest.of((int) teamsBefore / 2, 2), 3);
+        Page<TeamWithMembersDto> lastPage = teamQueryRepository.findTeamsWithMembers(
+                PageRequest.of(0, (int) teamsBefore + 5), 3);
+
+        assertThat(page.getContent()).hasSize(2);
+        TeamWithMembersDto pagingTeam4 = lastPage.getContent().get(lastPage.getContent().size() - 1);
+        assertThat(pagingTeam4.getName()).isEqualTo("pagingTeam4");
+        assertThat(pagingTeam4.getMembers()).extracting("username")
+                .containsExactly("member4-0", "member4-1", "member4-2");
+        assertThat(hibernateLogs.list).noneMatch(event -> event.getFormattedMessage().contains("HHH000104"));
+    }
+
+    @Test
+    public void membersAreLoadedWithOneQueryForThePage() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long teamsBefore = queryFactory.selectFrom(team).where(team.id.lt(teams.get(0).getId())).fetchCount();
+
+        long before = statistics.getPrepareStatementCount();
+        Page<TeamWithMembersDto> page = teamQueryRepository.findTeamsWithMembers(
+                PageRequest.of(0, (int) teamsBefore + 5), 2);
+
+        // 팀 페이지 1번 + 회원 1번 (마지막 페이지라서 count 쿼리는 없다)
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(2);
+        assertThat(page.getContent().subList(page.getContent().size() - 5, page.getContent().size()))
+                .allSatisfy(teamDto -> assertThat(teamDto.getMembers()).hasSize(2));
+    }
+
+    @Test
+    public void maxMembersPerTeamMustBePositive() {
+        assertThatThrownBy(() -> teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 2), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void collectionFetchJoinWithPagingWarns() {
+        // 비교용: 컬렉션 페치 조인 + 페이징은 메모리 페이징 경고가 난다.
+        queryFactory
+                .selectFrom(team).distinct()
+                .join(team.members, member).fetchJoin()
+                .offset(0)
+                .limit(2)
+                .fetch();
+
+        assertThat(hibernateLogs.list).anyMatch(event -> event.getFormattedMessage().contains("HHH000104"));
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class MemberBatchLookupServiceTest {
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired MemberBatchLookupService memberBatchLookupService;
+
+    Member member1;
+    Member member2;
+    Member member3;
+    Member duplicate1;
+    Member duplicate2;
+
+    @BeforeEach
+    public void makeFixture() {
+        Team lookupTeam = new Team("lookupTeam");
+        em.persist(lookupTeam);
+
+        member1 = new Member("lookupMember1", 10, lookupTeam);
+        member2 = new Member("lookupMember2", 20, lookupTeam);
+        member3 = new Member("lookupMember3", 30, lookupTeam);
+        duplicate1 = new Member("lookupDuplicate", 40, lookupTeam);
+        duplicate2 = new Member("lookupDuplicate", 50, lookupTeam);
+        for (Member each : Arrays.asList(member1, member2, member3, duplicate1, duplicate2)) {
+            em.persist(each);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findAllByIdsKeepsRequestedOrderAndSkipsMissing() {
+        Long missingId = member3.getId() + 1_000_000;
+
+        Map<Long, Member> found = memberBatchLookupService.findAllByIds(
+                Arrays.asList(member3.getId(), missingId, member1.getId(), member3.getId()));
+
+        assertThat(found.keySet()).containsExactly(member3.getId(), member1.getId());
+        assertThat(found.get(member1.getId()).getUsername()).isEqualTo("lookupMember1");
+    }
+
+    @Test
+    public void persistenceContextFirstSkipsManagedMembers() {
+        em.find(Member.class, member1.getId());
+        em.find(Member.class, member2.getId());
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        long before = statistics.getPrepareStatementCount();
+        Map<Long, Member> managedOnly = memberBatchLookupService.findAllByIds(
+                Arrays.asList(member2.getId(), member1.getId()), true);
+        assertThat(statistics.getPrepareStatementCount() - before).isZero();
+        assertThat(managedOnly.keySet()).containsExactly(member2.getId(), member1.getId());
+
+        before = statistics.getPrepareStatementCount();
+        Map<Long, Member> mixed = memberBatchLookupService.findAllByIds(
+                Arrays.asList(member1.getId(), member3.getId()), true);
+        // 영속성 컨텍스트에 없는 `member3`만 조회한다.
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+        assertThat(mixed.keySet()).containsExactly(member1.getId(), member3.getId());
+    }
+
+    @Test
+    public void findAllByUsernamesGroupsByUsername() {
+        Map<String, List<Member>> found = memberBatchLookupService.findAllByUsernames(
+                Arrays.asList("lookupDuplicate", "noSuchMember", "lookupMember2"));
+
+        assertThat(found.keySet()).containsExactly("lookupDuplicate", "lookupMember2");
+        assertThat(found.get("lookupDuplicate")).extracting("id")
+                .containsExactly(duplicate1.getId(), duplicate2.getId());
+        assertThat(found.get("lookupMember2")).extracting("age").containsExactly(20);
+    }
+}
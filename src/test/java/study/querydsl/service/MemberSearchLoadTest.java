@@ -0,0 +1,105 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 같은 동시 요청 수에서 블로킹 경로와 `Flux` 경로의 처리 시간과 스레드 사용량을 비교한다.
+ * 블로킹 경로는 톰캣처럼 요청 1개당 스레드 1개를 점유하고,
+ * `Flux` 경로는 `jdbcScheduler`의 스레드 수만큼만 JDBC 호출을 동시에 수행한다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MemberSearchLoadTest {
+    private static final int[] CONCURRENCY_LEVELS = {1, 10, 50, 200};
+
+    @Autowired MemberSearchService memberSearchService;
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    String teamName;
+    Long teamId;
+
+    @BeforeEach
+    public void makeFixture() {
+        teamName = "loadTeam-" + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team loadTeam = new Team(teamName);
+            em.persist(loadTeam);
+            teamId = loadTeam.getId();
+            for (int i = 0; i < 1_000; i++) {
+                em.persist(new Member("loadMember" + i, i % 100, loadTeam));
+            }
+        });
+    }
+
+    // 커밋한 데이터는 롤백되지 않으므로 직접 지운다. (전체 건수를 세는 테스트가 있다)
+    @AfterEach
+    public void removeFixture() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamId)).execute();
+            queryFactory.delete(team).where(team.id.eq(teamId)).execute();
+        });
+    }
+
+    @Test
+    public void compareBlockingAndStreaming() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            threadMXBean.resetPeakThreadCount();
+            long start = System.nanoTime();
+            ExecutorService requestThreads = Executors.newFixedThreadPool(concurrency);
+            List<Future<List<MemberDto>>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(requestThreads.submit(() -> memberSearchService.search(condition)));
+            }
+            for (Future<List<MemberDto>> future : futures) {
+                assertThat(future.get()).hasSize(1_000);
+            }
+            requestThreads.shutdown();
+            long blockingMillis = (System.nanoTime() - start) / 1_000_000;
+            int blockingPeakThreads = threadMXBean.getPeakThreadCount();
+
+            threadMXBean.resetPeakThreadCount();
+            start = System.nanoTime();
+            List<Integer> counts = Flux.range(0, concurrency)
+                    .flatMap(i -> memberSearchService.searchStream(condition, 200).count().map(Long::intValue), concurrency)
+                    .collectList()
+                    .block();
+            long streamingMillis = (System.nanoTime() - start) / 1_000_000;
+            int streamingPeakThreads = threadMXBean.getPeakThreadCount();
+
+            assertThat(counts).hasSize(concurrency).containsOnly(1_000);
+            System.out.printf("concurrency=%d blocking=%dms(peakThreads=%d) streaming=%dms(peakThreads=%d)%n",
+                    concurrency, blockingMillis, blockingPeakThreads, streamingMillis, streamingPeakThreads);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TeamBatchLoaderTest {
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JPAQueryFactory queryFactory;
+
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    public void makeFixture() {
+        for (int t = 0; t < 5; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int m = 0; m < 4; m++) {
+                Member member = new Member("member" + t + "-" + m, m, team);
+                em.persist(member);
+                members.add(member);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void scatteredLookupsBecomeOneQuery() {
+        TeamBatchLoader loader = new TeamBatchLoader(queryFactory, 512);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // 회원을 돌면서 팀을 하나씩 요청한다. (20번 요청, 팀은 5개)
+        List<CompletableFuture<Team>> futures = new ArrayList<>();
+        for (Member member : members) {
+            futures.add(loader.load(member.getTeam().getId()));
+        }
+        assertThat(futures).noneMatch(CompletableFuture::isDone);
+
+        long before = statistics.getPrepareStatementCount();
+        loader.dispatch();
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+
+        for (int i = 0; i < members.size(); i++) {
+            assertThat(futures.get(i).join().getName()).isEqualTo(members.get(i).getTeam().getName());
+        }
+
+        // 같은 팀을 다시 요청하면 캐시에서 바로 완료된다.
+        assertThat(loader.load(members.get(0).getTeam().getId())).isDone();
+        assertThat(loader.load(-1L)).isNotDone();
+        loader.dispatch();
+        assertThat(loader.load(-1L).join()).isNull();
+    }
+
+    @Test
+    public void joinWithoutDispatchSendsPendingRequests() {
+        TeamBatchLoader loader = new TeamBatchLoader(queryFactory, 512);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        CompletableFuture<Team> first = loader.load(members.get(0).getTeam().getId());
+        CompletableFuture<String> secondName = loader.load(members.get(4).getTeam().getId()).thenApply(Team::getName);
+        CompletableFuture<List<Team>> many = loader.loadMany(List.of(members.get(8).getTeam().getId(), -1L));
+
+        long before = statistics.getPrepareStatementCount();
+        // `dispatch()` 없이 기다려도 모인 요청을 한 번에 보낸다.
+        assertThat(secondName.join()).isEqualTo(members.get(4).getTeam().getName());
+        assertThat(first).isDone();
+        assertThat(many.join()).extracting(found -> found == null ? null : found.getName())
+                .containsExactly(members.get(8).getTeam().getName(), null);
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+    }
+}
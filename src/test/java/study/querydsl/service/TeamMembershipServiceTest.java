@@ -0,0 +1,100 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.repository.TeamMemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+// `changeTeam`은 자기 트랜잭션을 여러 번 커밋하므로 테스트 트랜잭션 없이 실행하고, 데이터는 직접 지운다.
+@SpringBootTest
+@ActiveProfiles("test")
+class TeamMembershipServiceTest {
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired TeamMembershipService teamMembershipService;
+    @Autowired TeamMemberRepository teamMemberRepository;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+
+    @BeforeEach
+    public void makeFixture() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teamA = new Team("teamA");
+            teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            for (int i = 2; i <= 30; i++) {
+                em.persist(new Member("member" + i, i, teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void removeFixture() {
+        List<Long> teamIds = List.of(teamA.getId(), teamB.getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.in(teamIds)).execute();
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+        });
+    }
+
+    @Test
+    public void changeTeamDoesNotInitializeMembers() {
+        teamMembershipService.changeTeam(member1.getId(), teamB.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team changed = em.getReference(Team.class, teamB.getId());
+            // `size()`는 count 쿼리로 처리되므로 컬렉션은 여전히 초기화되지 않은 상태여야 한다.
+            assertThat(changed.getMembers().size()).isEqualTo(30);
+            assertThat(Hibernate.isInitialized(changed.getMembers())).isFalse();
+        });
+
+        assertThat(teamMemberRepository.countMembers(teamB.getId())).isEqualTo(30);
+        assertThat(teamMemberRepository.countMembers(teamA.getId())).isEqualTo(0);
+        assertThat(teamMemberRepository.containsMember(teamB.getId(), member1.getId())).isTrue();
+        assertThat(teamMemberRepository.containsMember(teamA.getId(), member1.getId())).isFalse();
+    }
+
+    @Test
+    public void changeTeamRejectsCallerTransaction() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                teamMembershipService.changeTeam(member1.getId(), teamB.getId())))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(teamMemberRepository.containsMember(teamA.getId(), member1.getId())).isTrue();
+    }
+
+    @Test
+    public void findMembersPaging() {
+        Page<MemberDto> page = teamMemberRepository.findMembers(teamB.getId(), PageRequest.of(1, 10));
+
+        assertThat(page.getContent()).extracting("username")
+                .containsExactly("member12", "member13", "member14", "member15", "member16",
+                        "member17", "member18", "member19", "member20", "member21");
+        assertThat(page.getTotalElements()).isEqualTo(29);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.concurrency.OptimisticLockRetryExecutor;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.repository.TeamMemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 여러 스레드가 같은 두 팀 사이로 회원을 옮길 때의 처리량과 충돌 비율을 스레드 수별로 출력한다.
+ * 모든 이동이 (재시도를 거쳐서라도) 성공해야 하고, 회원 수가 새거나 중복되면 안 된다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TeamMembershipStressTest {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+    private static final int MOVES_PER_THREAD = 50;
+
+    @Autowired TeamMembershipService teamMembershipService;
+    @Autowired TeamMemberRepository teamMemberRepository;
+    @Autowired OptimisticLockRetryExecutor retryExecutor;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+
+    Team hotTeamA;
+    Team hotTeamB;
+    List<Long> memberIds;
+
+    @BeforeEach
+    public void makeFixture() {
+        memberIds = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            hotTeamA = new Team("hotTeamA");
+            hotTeamB = new Team("hotTeamB");
+            em.persist(hotTeamA);
+            em.persist(hotTeamB);
+            for (int i = 0; i < 32; i++) {
+                Member stressMember = new Member("stressMember" + i, i, hotTeamA);
+                em.persist(stressMember);
+                memberIds.add(stressMember.getId());
+            }
+        });
+    }
+
+    // 커밋한 데이터는 롤백되지 않으므로 직접 지운다. (전체 건수를 세는 테스트가 있다)
+    @AfterEach
+    public void removeFixture() {
+        List<Long> teamIds = List.of(hotTeamA.getId(), hotTeamB.getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.in(teamIds)).execute();
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+        });
+    }
+
+    @Test
+    public void concurrentChangeTeam() throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            long attemptsBefore = retryExecutor.getAttemptCount();
+            long conflictsBefore = retryExecutor.getConflictCount();
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < MOVES_PER_THREAD; i++) {
+                        // 스레드끼리 같은 회원을 건드리도록 일부러 겹치게 고른다.
+                        Long memberId = memberIds.get((threadIndex + i) % memberIds.size());
+                        Long teamId = i % 2 == 0 ? hotTeamB.getId() : hotTeamA.getId();
+                        teamMembershipService.changeTeam(memberId, teamId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            long elapsedNanos = System.nanoTime() - start;
+
+            long moves = (long) threads * MOVES_PER_THREAD;
+            long attempts = retryExecutor.getAttemptCount() - attemptsBefore;
+            long conflicts = retryExecutor.getConflictCount() - conflictsBefore;
+            System.out.printf("threads=%d throughput=%.1f moves/s conflictRate=%.2f%% (conflicts=%d, attempts=%d)%n",
+                    threads, moves * 1e9 / elapsedNanos, attempts == 0 ? 0 : conflicts * 100.0 / attempts, conflicts, attempts);
+
+            assertThat(attempts - conflicts).isEqualTo(moves);
+            assertThat(teamMemberRepository.countMembers(hotTeamA.getId())
+                    + teamMemberRepository.countMembers(hotTeamB.getId())).isEqualTo(memberIds.size());
+        }
+    }
+}
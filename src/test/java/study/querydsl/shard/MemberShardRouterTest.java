@@ -0,0 +1,106 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.AgeStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+
+/**
+ * 임베디드 H2(메모리) 3개를 샤드로 쓴다.
+ */
+class MemberShardRouterTest {
+    MemberShardRouter router;
+    List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    public void makeFixture() {
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(new Shard(i, "jdbc:h2:mem:shard" + i + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "", "create"));
+        }
+        router = new MemberShardRouter(shards);
+
+        // team0: 0, 10 / team1: 1, 11 / ... / team5: 5, 15
+        for (int t = 0; t < 6; t++) {
+            Team team = router.createTeam("team" + t);
+            teams.add(team);
+            router.createMember("member" + t, t, team.getId());
+            router.createMember("member" + (t + 10), t + 10, team.getId());
+        }
+    }
+
+    @AfterEach
+    public void close() {
+        router.close();
+    }
+
+    @Test
+    public void teamsAreSpreadAndIdsAreUnique() {
+        Set<Integer> usedShards = teams.stream()
+                .map(team -> router.shardOfTeam(team.getId()).getIndex())
+                .collect(Collectors.toSet());
+        assertThat(usedShards.size()).isGreaterThan(1);
+
+        List<Long> memberIds = router.queryAll(queryFactory -> queryFactory.select(member.id).from(member).fetch())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        assertThat(memberIds).hasSize(12).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void singleShardQuery() {
+        Team team3 = teams.get(3);
+
+        assertThat(router.countMembers(team3.getId())).isEqualTo(2);
+        List<Member> members = router.queryTeam(team3.getId(), queryFactory -> queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(team3.getId()))
+                .orderBy(member.age.asc())
+                .fetch());
+        assertThat(members).extracting("age").containsExactly(3, 13);
+    }
+
+    @Test
+    public void crossShardAggregation() {
+        AgeStats stats = router.ageStats();
+
+        assertThat(stats.getCount()).isEqualTo(12);
+        assertThat(stats.getSum()).isEqualTo(90);
+        assertThat(stats.getMin()).isEqualTo(0);
+        assertThat(stats.getMax()).isEqualTo(15);
+        assertThat(stats.getAvg()).isEqualTo(7.5);
+    }
+
+    @Test
+    public void crossShardGroupBy() {
+        Map<String, AgeStats> byTeam = router.ageStatsByTeam();
+
+        assertThat(byTeam).hasSize(6);
+        assertThat(byTeam.get("team2").getCount()).isEqualTo(2);
+        assertThat(byTeam.get("team2").getAvg()).isEqualTo(7);
+        assertThat(byTeam.get("team5").getMax()).isEqualTo(15);
+    }
+
+    @Test
+    public void shardWithSequenceOutOfRangeFailsFast() {
+        String url = "jdbc:h2:mem:preCreated-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        // 스키마만 만들고 시퀀스는 1부터 시작하는(0번 샤드 범위) DB
+        new Shard(0, url, "sa", "", "create").close();
+
+        assertThatThrownBy(() -> new Shard(1, url, "sa", "", "none"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("restart with " + ((1L << Shard.ID_BITS) + 1));
+    }
+}
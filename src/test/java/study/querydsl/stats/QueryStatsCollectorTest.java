@@ -0,0 +1,102 @@
+package study.querydsl.stats;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import study.querydsl.cache.QueryResultCache;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+/**
+ * 하이버네이트 `Statistics`는 목으로 대신한다.
+ */
+class QueryStatsCollectorTest {
+    EntityManagerFactory emf = mock(EntityManagerFactory.class);
+    Statistics statistics = mock(Statistics.class);
+    QueryResultCache queryResultCache = new QueryResultCache(1024 * 1024);
+
+    @BeforeEach
+    public void setUp() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(emf.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+
+        // q1: 2회, 최대 30ms / q2: 1회, 최대 50ms / q3: 1회, 최대 10ms / q4: 실행 안 됨
+        when(statistics.getQueries()).thenReturn(new String[]{"q1", "q2", "q3", "q4"});
+        stubQuery("q1", 2, 20, 30);
+        stubQuery("q2", 1, 50, 50);
+        stubQuery("q3", 1, 10, 10);
+        stubQuery("q4", 0, 0, 0);
+    }
+
+    @Test
+    public void invalidSamplingConfiguration() {
+        assertThatThrownBy(() -> new QueryStatsCollector(emf, queryResultCache, true, 0, 60_000, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new QueryStatsCollector(emf, queryResultCache, true, 10_000, 5_000, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new QueryStatsCollector(emf, queryResultCache, false, 10_000, 60_000, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void samplingEnablesStatisticsForFirstWindowOfEachPeriod() {
+        QueryStatsCollector collector = new QueryStatsCollector(emf, queryResultCache, true, 10, 30, 10);
+
+        for (int i = 0; i < 6; i++) {
+            collector.sample();
+        }
+
+        InOrder inOrder = inOrder(statistics);
+        inOrder.verify(statistics).setStatisticsEnabled(true);
+        inOrder.verify(statistics, times(2)).setStatisticsEnabled(false);
+        inOrder.verify(statistics).setStatisticsEnabled(true);
+        inOrder.verify(statistics, times(2)).setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void samplingOffLeavesStatisticsAlone() {
+        QueryStatsCollector collector = new QueryStatsCollector(emf, queryResultCache, false, 10, 30, 10);
+
+        collector.sample();
+        collector.sample();
+
+        verify(statistics, never()).setStatisticsEnabled(anyBoolean());
+    }
+
+    @Test
+    public void topByMaxTime() {
+        QueryStatsCollector collector = new QueryStatsCollector(emf, queryResultCache, false, 10, 30, 2);
+
+        assertThat(collector.topByMaxTime()).extracting(QueryShapeStats::getQuery).containsExactly("q2", "q1");
+    }
+
+    @Test
+    public void endpointReportsByTotalTimeAndClears() {
+        QueryStatsCollector collector = new QueryStatsCollector(emf, queryResultCache, false, 10, 30, 10);
+        QueryStatsEndpoint endpoint = new QueryStatsEndpoint(collector);
+
+        QueryStatsReport report = endpoint.report();
+        // 전체 시간: q2 50ms, q1 40ms, q3 10ms. 실행되지 않은 q4 는 빠진다.
+        assertThat(report.getQueries()).extracting(QueryShapeStats::getQuery).containsExactly("q2", "q1", "q3");
+        assertThat(report.getQueries().get(1).getTotalTimeMillis()).isEqualTo(40);
+
+        new QueryStatsClearExtension(collector).clear();
+        verify(statistics).clear();
+    }
+
+    private void stubQuery(String query, long count, long meanMillis, long maxMillis) {
+        QueryStatistics queryStatistics = mock(QueryStatistics.class);
+        when(queryStatistics.getExecutionCount()).thenReturn(count);
+        when(queryStatistics.getExecutionAvgTime()).thenReturn(meanMillis);
+        when(queryStatistics.getExecutionMaxTime()).thenReturn(maxMillis);
+        when(statistics.getQueryStatistics(query)).thenReturn(queryStatistics);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class InListChunksTest {
+
+    @Test
+    public void removeDuplicates() {
+        List<List<Long>> chunks = InListChunks.of(Arrays.asList(1L, 2L, 3L, 3L, 4L, 5L), 100);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0)).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    public void splitByMaxSize() {
+        List<Long> ids = LongStream.rangeClosed(1, 1_100).boxed().collect(Collectors.toList());
+
+        List<List<Long>> chunks = InListChunks.of(ids, 500);
+
+        assertThat(chunks).extracting(List::size).containsExactly(500, 500, 100);
+        assertThat(chunks.stream().flatMap(List::stream).distinct().count()).isEqualTo(1_100);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.warmup;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class QueryShapeRecorderTest {
+    // 다른 테스트나 이전 실행이 남긴 모양과 섞이지 않도록 빈 파일에서 시작한다.
+    // 이 설정 때문에 이 클래스는 스프링 컨텍스트를 따로 띄우는데, 캐시된 다른 컨텍스트가 저널 디렉터리의 락을 쥐고 있으므로
+    // 저널 파일도 모두 임시 디렉터리로 옮긴다.
+    @TempDir static Path directory;
+
+    @DynamicPropertySource
+    static void stateFiles(DynamicPropertyRegistry registry) {
+        registry.add("warmup.shapes-file", () -> directory.resolve("query-shapes.txt").toString());
+        registry.add("member.write-behind.journal-dir", () -> directory.resolve("write-behind").toString());
+        registry.add("cdc.journal-file", () -> directory.resolve("cdc/changes.log").toString());
+    }
+
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired QueryShapeRecorder recorder;
+    @Autowired EntityManager em;
+
+    @Test
+    public void recordAndReplayShape() {
+        String jpql = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).on(team.name.eq("teamA"))
+                .where(member.age.goe(10))
+                .toString();
+        // `toString()`은 앞뒤 공백을 잘라서 반환하므로 비교할 때는 기록된 쪽도 자른다.
+        assertThat(recorder.load()).noneMatch(shape -> shape.trim().equals(jpql));
+
+        queryFactory
+                .selectFrom(member)
+                .join(member.team, team).on(team.name.eq("teamA"))
+                .where(member.age.goe(10))
+                .fetch();
+
+        // 여러 줄짜리 JPQL 도 파일에서 그대로 복원되어야 하고, 복원한 문자열로 다시 컴파일할 수 있어야 한다.
+        String recorded = new QueryShapeRecorder(directory.resolve("query-shapes.txt").toString(), false, 2000)
+                .load().stream()
+                .filter(shape -> shape.trim().equals(jpql))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("기록된 쿼리 모양이 없습니다: " + jpql));
+        assertThat(recorded).contains("\n");
+        assertThat(em.createQuery(recorded)).isNotNull();
+    }
+
+    @Test
+    public void escape() {
+        String jpql = "select member1\nfrom Member member1\nwhere member1.username like ?1 escape '\\'";
+
+        assertThat(QueryShapeRecorder.escape(jpql)).doesNotContain("\n");
+        assertThat(QueryShapeRecorder.unescape(QueryShapeRecorder.escape(jpql))).isEqualTo(jpql);
+    }
+}
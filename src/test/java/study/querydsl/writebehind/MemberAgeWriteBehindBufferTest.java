@@ -0,0 +1,184 @@
+package study.querydsl.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.QueryResultCache;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * DB 는 `JdbcTemplate` 목으로 대신하고, 저널은 임시 디렉터리에 쓴다.
+ */
+class MemberAgeWriteBehindBufferTest {
+    @TempDir Path directory;
+
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    List<MemberAgesFlushedEvent> events = new ArrayList<>();
+    MemberAgeWriteBehindBuffer buffer;
+
+    @AfterEach
+    public void close() throws Exception {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void coalescesUpdatesPerMember() throws Exception {
+        buffer = newBuffer(10, 1000);
+        buffer.update(1L, 10);
+        buffer.update(1L, 11);
+        buffer.update(2L, 20);
+        assertThat(buffer.pendingCount()).isEqualTo(2);
+
+        buffer.flush();
+
+        assertThat(flushedBatches()).containsExactly(Map.of(1L, 11, 2L, 20));
+        assertThat(events).extracting(MemberAgesFlushedEvent::getAges).containsExactly(Map.of(1L, 11, 2L, 20));
+        assertThat(buffer.pendingCount()).isZero();
+    }
+
+    @Test
+    public void flushCarriesPreviousAgesAndTeams() throws Exception {
+        // member_id, team_id, age: 1번은 팀 7, 2번은 팀 없음, 3번은 DB 에 없다.
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(1L, 7L, 30));
+            handler.processRow(row(2L, null, 40));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), (Object[]) any());
+        buffer = newBuffer(10, 1000);
+        buffer.update(1L, 31);
+        buffer.update(2L, 41);
+        buffer.update(3L, 51);
+
+        buffer.flush();
+
+        MemberAgesFlushedEvent event = events.get(0);
+        assertThat(event.getPreviousAges()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 30, 2L, 40));
+        assertThat(event.getTeamIds()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 7L));
+    }
+
+    @Test
+    public void newMembersWaitForPermitAndTimeOut() throws Exception {
+        buffer = newBuffer(1, 50);
+        buffer.update(1L, 10);
+        // 이미 버퍼에 있는 회원은 덮어쓰기라서 기다리지 않는다.
+        buffer.update(1L, 11);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> buffer.update(2L, 20)).isInstanceOf(IllegalStateException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(50);
+
+        // 플러시로 자리가 나면 다시 받는다.
+        buffer.flush();
+        buffer.update(2L, 20);
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void failedFlushIsRetriedAndNewerValuesWin() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(new int[0]);
+        buffer = newBuffer(10, 1000);
+        buffer.update(1L, 10);
+        buffer.update(2L, 20);
+
+        buffer.flush();
+        assertThat(events).isEmpty();
+        assertThat(directory.toFile().list((dir, name) -> name.endsWith(".sealed"))).hasSize(1);
+
+        buffer.update(1L, 11);
+        buffer.flush();
+
+        assertThat(flushedBatches()).containsExactly(Map.of(1L, 10, 2L, 20), Map.of(1L, 11, 2L, 20));
+        assertThat(events).extracting(MemberAgesFlushedEvent::getAges).containsExactly(Map.of(1L, 11, 2L, 20));
+        // 반영이 끝난 저널은 지운다.
+        assertThat(directory.toFile().list((dir, name) -> name.endsWith(".sealed"))).isEmpty();
+    }
+
+    @Test
+    public void failedFlushKeepsPermitsUntilCommit() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(new int[0]);
+        buffer = newBuffer(1, 50);
+        buffer.update(1L, 10);
+
+        buffer.flush();
+        // 재시도를 기다리는 회원이 자리를 차지하고 있으므로 새 회원은 들어오지 못한다.
+        assertThatThrownBy(() -> buffer.update(2L, 20)).isInstanceOf(IllegalStateException.class);
+        assertThat(directory.toFile().list((dir, name) -> name.endsWith(".sealed"))).hasSize(1);
+
+        // 재시도가 커밋되면 자리가 돌아온다.
+        buffer.flush();
+        buffer.update(2L, 20);
+        assertThat(flushedBatches()).containsExactly(Map.of(1L, 10), Map.of(1L, 10));
+    }
+
+    @Test
+    public void recoverReplaysJournalOnFirstFlush() throws Exception {
+        // 지난 실행이 플러시하지 못하고 죽었다.
+        WriteBehindJournal crashed = new WriteBehindJournal(directory, true);
+        crashed.append(1L, 10);
+        crashed.append(2L, 20);
+        crashed.append(1L, 12);
+        crashed.close();
+
+        buffer = newBuffer(10, 1000);
+        buffer.recover();
+        verifyNoInteractions(jdbcTemplate);
+
+        buffer.flush();
+
+        assertThat(flushedBatches()).containsExactly(Map.of(1L, 12, 2L, 20));
+        assertThat(directory.toFile().list((dir, name) -> name.endsWith(".sealed"))).isEmpty();
+    }
+
+    private MemberAgeWriteBehindBuffer newBuffer(int maxPending, long offerTimeoutMillis) {
+        return new MemberAgeWriteBehindBuffer(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new QueryResultCache(1024 * 1024),
+                event -> events.add((MemberAgesFlushedEvent) event),
+                directory.toString(), false, maxPending, offerTimeoutMillis);
+    }
+
+    private static ResultSet row(Long memberId, Long teamId, int age) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(memberId);
+        when(rs.getLong(2)).thenReturn(teamId == null ? 0L : teamId);
+        when(rs.wasNull()).thenReturn(teamId == null);
+        when(rs.getInt(3)).thenReturn(age);
+        return rs;
+    }
+
+    // `batchUpdate` 호출마다 (member_id -> age)
+    @SuppressWarnings("unchecked")
+    private List<Map<Long, Integer>> flushedBatches() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeast(0)).batchUpdate(anyString(), captor.capture());
+        return captor.getAllValues().stream()
+                .map(args -> args.stream().collect(Collectors.toMap(row -> (Long) row[1], row -> (Integer) row[0])))
+                .collect(Collectors.toList());
+    }
+}
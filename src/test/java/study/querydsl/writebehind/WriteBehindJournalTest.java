@@ -0,0 +1,52 @@
+package study.querydsl.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WriteBehindJournalTest {
+    @TempDir Path directory;
+
+    @Test
+    public void replayAfterCrash() throws Exception {
+        WriteBehindJournal journal = new WriteBehindJournal(directory, true);
+        journal.append(1L, 10);
+        journal.append(2L, 20);
+        Path flushed = journal.seal();
+        journal.append(1L, 11);
+        journal.delete(flushed);
+        journal.append(3L, 30);
+        journal.append(1L, 12);
+        // 봉인하지 못하고 죽었다고 가정한다. (죽으면 디렉터리 잠금은 풀린다) 마지막 레코드는 쓰다가 잘렸다.
+        journal.close();
+        Files.write(directory.resolve("journal.active"), new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+
+        WriteBehindJournal restarted = new WriteBehindJournal(directory, true);
+        restarted.seal();
+        List<Path> sealedFiles = restarted.sealedFiles();
+        Map<Long, Integer> recovered = new LinkedHashMap<>();
+        restarted.replay(sealedFiles, recovered::put);
+
+        assertThat(recovered).containsOnly(entry(1L, 12), entry(3L, 30));
+        restarted.close();
+    }
+
+    @Test
+    public void directoryIsUsedByOneInstanceOnly() throws Exception {
+        WriteBehindJournal journal = new WriteBehindJournal(directory, false);
+
+        assertThatThrownBy(() -> new WriteBehindJournal(directory, false))
+                .isInstanceOf(IllegalStateException.class);
+
+        journal.close();
+        new WriteBehindJournal(directory, false).close();
+    }
+}